@@ -0,0 +1,30 @@
+package Common;
+
+/**
+ * {@link StageRecorder_Common} that commits every timed piece of work as a
+ * {@link StageEvent_Common}. Only built by the {@code jfr} profile;
+ * {@link StageRecorder_Common#load()} finds it by name.
+ */
+public class JfrStageRecorder_Common implements StageRecorder_Common {
+
+    @Override
+    public Object begin() {
+        StageEvent_Common event = new StageEvent_Common();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void end(Object started, String engine, Stage_Common stage, int pages, long chars, long tokens) {
+        StageEvent_Common event = (StageEvent_Common) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = engine;
+            event.stage = stage.name();
+            event.pages = pages;
+            event.chars = chars;
+            event.tokens = tokens;
+            event.commit();
+        }
+    }
+}
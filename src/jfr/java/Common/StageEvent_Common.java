@@ -0,0 +1,35 @@
+package Common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one timed piece of work: a page read, a page's tokenizing
+ * or counting pass, or a merge. Record with -XX:StartFlightRecording and look for
+ * WordCount/Stage next to the GC events.
+ */
+@Name("wordcount.Stage")
+@Label("Word Count Stage")
+@Category("WordCount")
+@Description("One timed piece of a word count run")
+@StackTrace(false)
+public class StageEvent_Common extends jdk.jfr.Event {
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Pages")
+    int pages;
+
+    @Label("Text Chars")
+    long chars;
+
+    @Label("Tokens")
+    long tokens;
+}
@@ -0,0 +1,68 @@
+package Common;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counting pre-tokenized words: HashMap.merge on substrings, as the engines first did,
+ * against the primitive tables that count straight from the page text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountingBenchmark_Common {
+
+    @Param({"10000", "100000", "1000000"})
+    public int words;
+
+    private String text;
+    private int[] starts;
+    private int[] lengths;
+
+    @Setup
+    public void setup() {
+        text = SampleDump_Common.text();
+        int[][] spans = SampleDump_Common.words(text, words);
+        starts = spans[0];
+        lengths = spans[1];
+    }
+
+    @Benchmark
+    public Map<String, Integer> hashMapMerge() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < words; i++)
+            counts.merge(text.substring(starts[i], starts[i] + lengths[i]), 1, Integer::sum);
+        return counts;
+    }
+
+    @Benchmark
+    public Map<String, Long> concurrentHashMapMerge() {
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        for (int i = 0; i < words; i++)
+            counts.merge(text.substring(starts[i], starts[i] + lengths[i]), 1L, Long::sum);
+        return counts;
+    }
+
+    @Benchmark
+    public WordCountTable_Common wordCountTable() {
+        WordCountTable_Common counts = new WordCountTable_Common();
+        for (int i = 0; i < words; i++)
+            counts.add(text, starts[i], lengths[i]);
+        return counts;
+    }
+
+    @Benchmark
+    public StripedWordCountTable_Common stripedWordCountTable() {
+        StripedWordCountTable_Common counts = new StripedWordCountTable_Common();
+        for (int i = 0; i < words; i++)
+            counts.add(text, starts[i], lengths[i]);
+        return counts;
+    }
+}
@@ -0,0 +1,72 @@
+package Common;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging per-task partial counts into one result, as the engines do after their
+ * workers finish: HashMap.merge per entry against WordCountTable_Common.addAll, and
+ * the parallel merge by hash stripe on the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeBenchmark_Common {
+
+    @Param({"8", "64"})
+    public int partials;
+
+    @Param({"10000", "100000"})
+    public int wordsPerPartial;
+
+    private final List<Map<String, Integer>> partialMaps = new ArrayList<>();
+    private final List<WordCountTable_Common> partialTables = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        String text = SampleDump_Common.text();
+        int[][] spans = SampleDump_Common.words(text, partials * wordsPerPartial);
+        for (int p = 0; p < partials; p++) {
+            Map<String, Integer> map = new HashMap<>();
+            WordCountTable_Common table = new WordCountTable_Common();
+            for (int i = p * wordsPerPartial; i < (p + 1) * wordsPerPartial; i++) {
+                map.merge(text.substring(spans[0][i], spans[0][i] + spans[1][i]), 1, Integer::sum);
+                table.add(text, spans[0][i], spans[1][i]);
+            }
+            partialMaps.add(map);
+            partialTables.add(table);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Integer> hashMapMerge() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map<String, Integer> partial : partialMaps)
+            for (Map.Entry<String, Integer> entry : partial.entrySet())
+                counts.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        return counts;
+    }
+
+    @Benchmark
+    public WordCountTable_Common tableAddAll() {
+        WordCountTable_Common counts = new WordCountTable_Common();
+        for (WordCountTable_Common partial : partialTables)
+            counts.addAll(partial);
+        return counts;
+    }
+
+    @Benchmark
+    public StripedWordCountTable_Common stripedMerge() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return StripedWordCountTable_Common.merge(partialTables, pool.getParallelism(), pool);
+    }
+}
@@ -0,0 +1,84 @@
+package Common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The small dump bundled with the benchmarks. Page sources read files, so the
+ * resource is copied to a temporary file once per JVM.
+ */
+public final class SampleDump_Common {
+
+    public static final String RESOURCE = "/sample-enwiki.xml";
+    public static final int PAGES = 100;
+
+    private static String fileName;
+    private static String text;
+
+    private SampleDump_Common() {
+    }
+
+    public static synchronized String fileName() {
+        if (fileName == null) {
+            try (InputStream in = SampleDump_Common.class.getResourceAsStream(RESOURCE)) {
+                if (in == null)
+                    throw new IllegalStateException("Missing resource " + RESOURCE);
+                Path file = Files.createTempFile("sample-enwiki", ".xml");
+                file.toFile().deleteOnExit();
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                fileName = file.toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return fileName;
+    }
+
+    /**
+     * The text of every page, joined with blank lines.
+     */
+    public static synchronized String text() {
+        if (text == null) {
+            StringBuilder builder = new StringBuilder();
+            for (String page : new MappedPages_Common<>(PAGES, fileName(), (title, body) -> body))
+                if (page != null)
+                    builder.append(page).append("\n\n");
+            text = builder.toString();
+        }
+        return text;
+    }
+
+    /**
+     * Exactly {@code chars} characters of page text, repeating the dump as needed.
+     */
+    public static String text(int chars) {
+        String sample = text();
+        StringBuilder builder = new StringBuilder(chars);
+        while (builder.length() < chars)
+            builder.append(sample, 0, Math.min(sample.length(), chars - builder.length()));
+        return builder.toString();
+    }
+
+    /**
+     * Start and length of the first {@code count} words of {@code text}, as the
+     * tokenizer finds them; the text is repeated if it holds fewer words.
+     */
+    public static int[][] words(String text, int count) {
+        int[] starts = new int[count];
+        int[] lengths = new int[count];
+        WordTokenizer_Common words = new WordTokenizer_Common().reset(text);
+        for (int i = 0; i < count; i++) {
+            if (!words.next()) {
+                words.reset(text);
+                words.next();
+            }
+            starts[i] = words.start();
+            lengths[i] = words.length();
+        }
+        return new int[][]{starts, lengths};
+    }
+}
@@ -0,0 +1,57 @@
+package Common;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar against Vector API scanning: counting {@code <} and {@code &} bytes in the raw
+ * dump. The bytes counter gives MB/s.
+ * Build with {@code mvn -Pjmh,vector package}; without the vector profile the "vector"
+ * parameter falls back to the scalar loops and says so.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ScanBenchmark_Common {
+
+    @Param({"scalar", "vector"})
+    public String scanner;
+
+    private DelimiterScanner_Common scan;
+    private ByteBuffer dump;
+    private byte[] dumpBytes;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public long bytes;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        scan = scanner.equals("vector") ? DelimiterScanner_Common.load() : DelimiterScanner_Common.SCALAR;
+        if (scanner.equals("vector") && scan == DelimiterScanner_Common.SCALAR)
+            System.out.println("Vector API scanner not available, measuring the scalar loops");
+        dumpBytes = Files.readAllBytes(Paths.get(SampleDump_Common.fileName()));
+        dump = ByteBuffer.allocateDirect(dumpBytes.length);
+        dump.put(dumpBytes).clear();
+    }
+
+    @Benchmark
+    public int markupBytes(Bytes counter) {
+        int count = 0;
+        for (int i = scan.indexOf(dump, (byte) '<', 0, dumpBytes.length); i >= 0; i = scan.indexOf(dump, (byte) '<', i + 1, dumpBytes.length))
+            count++;
+        for (int i = scan.indexOf(dumpBytes, (byte) '&', 0, dumpBytes.length); i >= 0; i = scan.indexOf(dumpBytes, (byte) '&', i + 1, dumpBytes.length))
+            count++;
+        counter.bytes += 2L * dumpBytes.length;
+        return count;
+    }
+}
@@ -0,0 +1,55 @@
+package Sequential;
+
+import Common.MappedPages_Common;
+import Common.SampleDump_Common;
+import Common.ShardedPages_Common;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page extraction throughput of the StAX reader, the memory-mapped scanner and the
+ * sharded reader over the bundled dump.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PagesBenchmark_Sequential {
+
+    @Param({"10", "50", "100"})
+    public int maxPages;
+
+    private String fileName;
+
+    @Setup
+    public void setup() {
+        fileName = SampleDump_Common.fileName();
+    }
+
+    @Benchmark
+    public void stax(Blackhole blackhole) {
+        consume(new Pages_Sequential(maxPages, fileName), blackhole);
+    }
+
+    @Benchmark
+    public void mapped(Blackhole blackhole) {
+        consume(new MappedPages_Common<>(maxPages, fileName, Page_Sequential::new), blackhole);
+    }
+
+    @Benchmark
+    public void sharded(Blackhole blackhole) {
+        consume(new ShardedPages_Common<>(maxPages, fileName, 2, Page_Sequential::new), blackhole);
+    }
+
+    private static void consume(Iterable<Page_Sequential> pages, Blackhole blackhole) {
+        for (Page_Sequential page : pages) {
+            if (page == null)
+                break;
+            blackhole.consume(page.getText());
+        }
+    }
+}
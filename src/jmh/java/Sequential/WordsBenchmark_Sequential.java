@@ -0,0 +1,63 @@
+package Sequential;
+
+import Common.SampleDump_Common;
+import Common.TokenizerMode_Common;
+import Common.WordTokenizer_Common;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenization of page text: the original BreakIterator + substring iterator against
+ * the allocation-free tokenizer, with and without the ASCII fast path. Besides texts per second, the chars counter reports
+ * throughput in chars per second, comparable across text sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordsBenchmark_Sequential {
+
+    @Param({"65536", "1048576", "8388608"})
+    public int textChars;
+
+    private String text;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Chars {
+        public long chars;
+    }
+
+    @Setup
+    public void setup() {
+        text = SampleDump_Common.text(textChars);
+    }
+
+    @Benchmark
+    public void breakIteratorSubstring(Chars counter, Blackhole blackhole) {
+        for (String word : new Words_Sequential(text))
+            if (word.length() > 1 || word.equals("a") || word.equals("I"))
+                blackhole.consume(word);
+        counter.chars += textChars;
+    }
+
+    @Benchmark
+    public void tokenizer(Chars counter, Blackhole blackhole) {
+        WordTokenizer_Common words = new WordTokenizer_Common().reset(text);
+        while (words.next())
+            blackhole.consume(words.start());
+        counter.chars += textChars;
+    }
+
+    @Benchmark
+    public void asciiTokenizer(Chars counter, Blackhole blackhole) {
+        WordTokenizer_Common words = new WordTokenizer_Common(false, TokenizerMode_Common.ASCII).reset(text);
+        while (words.next())
+            blackhole.consume(words.start());
+        counter.chars += textChars;
+    }
+}
@@ -0,0 +1,82 @@
+package Common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-memory word counts for one thread: a {@link CountMinSketch_Common} holds an
+ * upper bound for every word and a {@link SpaceSaving_Common} summary remembers which
+ * words are frequent. Both structures are sized from epsilon alone, so memory does not
+ * grow with the vocabulary or the number of pages. Not thread-safe.
+ */
+public class ApproximateCounter_Common implements WordCounter_Common {
+
+    private final CountMinSketch_Common sketch;
+    private final SpaceSaving_Common heavyHitters;
+
+    public ApproximateCounter_Common(double epsilon, double delta) {
+        this.sketch = new CountMinSketch_Common(epsilon, delta);
+        this.heavyHitters = new SpaceSaving_Common((int) Math.ceil(1 / epsilon));
+    }
+
+    public void add(CharSequence text, int offset, int length) {
+        int hash = WordSlice_Common.hash(text, offset, length);
+        sketch.add(text, offset, length, 1);
+        heavyHitters.add(text, offset, length, hash, 1);
+    }
+
+    public void merge(ApproximateCounter_Common other) {
+        sketch.merge(other.sketch);
+        heavyHitters.merge(other.heavyHitters);
+    }
+
+    /**
+     * The k most frequent words. Each estimate is the smaller of the two upper bounds;
+     * the lower bound is the Space-Saving count minus its error.
+     */
+    public List<Estimate> top(int k) {
+        List<Estimate> top = new ArrayList<>(k);
+        for (int counter : heavyHitters.top(k)) {
+            long count = heavyHitters.count(counter);
+            String word = heavyHitters.word(counter);
+            long estimate = Math.min(count, sketch.estimate(word, 0, word.length()));
+            long lowerBound = Math.max(0, count - heavyHitters.error(counter));
+            top.add(new Estimate(word, estimate, Math.min(lowerBound, estimate)));
+        }
+        return top;
+    }
+
+    public long getTotal() {
+        return sketch.getTotal();
+    }
+
+    public String errorBounds() {
+        return "Approximate counts over " + sketch.getTotal() + " words: estimates exceed the true count by at most "
+                + sketch.errorBound() + " (epsilon " + sketch.getEpsilon() + ") with probability "
+                + (1 - sketch.getDelta()) + "; lower bounds always hold";
+    }
+
+    public static final class Estimate {
+        private final String word;
+        private final long count;
+        private final long lowerBound;
+
+        Estimate(String word, long count, long lowerBound) {
+            this.word = word;
+            this.count = count;
+            this.lowerBound = lowerBound;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getLowerBound() {
+            return lowerBound;
+        }
+    }
+}
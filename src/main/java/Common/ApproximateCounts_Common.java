@@ -0,0 +1,35 @@
+package Common;
+
+/**
+ * Approximate counts shared by all worker threads. Every thread counts into its own
+ * {@link ApproximateCounter_Common}, so updates never contend; the per-thread sketches
+ * are combined by element-wise add once the workers are done.
+ */
+public class ApproximateCounts_Common implements WordCounter_Common {
+
+    private final double epsilon;
+    private final double delta;
+    private final PerThread_Common<ApproximateCounter_Common> local;
+
+    public ApproximateCounts_Common(double epsilon, double delta) {
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.local = new PerThread_Common<>(() -> new ApproximateCounter_Common(epsilon, delta));
+    }
+
+    public void add(CharSequence text, int offset, int length) {
+        local.get().add(text, offset, length);
+    }
+
+    /**
+     * Merges the counters of every thread that took part. Call once, after all workers
+     * have finished; the per-thread counters are released.
+     */
+    public ApproximateCounter_Common merge() {
+        ApproximateCounter_Common merged = new ApproximateCounter_Common(epsilon, delta);
+        for (ApproximateCounter_Common counter : local.values())
+            merged.merge(counter);
+        local.release();
+        return merged;
+    }
+}
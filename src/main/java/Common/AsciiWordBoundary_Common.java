@@ -0,0 +1,136 @@
+package Common;
+
+/**
+ * The word boundaries of {@link java.text.BreakIterator#getWordInstance()} for text that
+ * is plain ASCII, found with a character class table. Letters and digits form one token
+ * together with the punctuation the JDK rules allow inside words ({@code can't},
+ * {@code e-mail}, {@code a.b}, {@code snake_case}) and numbers ({@code 1,000.5}, {@code 3'2"}),
+ * a currency or number sign before a number ({@code $5}, {@code #1}, {@code .5}) and a
+ * percent or ampersand after one ({@code 5%}). A run of spaces and tabs is one token,
+ * optionally ending with a line break. Every other character is a token on its own.
+ */
+final class AsciiWordBoundary_Common {
+
+    private static final int LETTER = 1;
+    private static final int DIGIT = 2;
+    private static final int MID_WORD = 4;
+    private static final int MID_NUM = 8;
+    private static final int PRE_NUM = 16;
+    private static final int POST_NUM = 32;
+    private static final int SPACE = 64;
+    private static final int CR = 128;
+    private static final int LINE = 256;
+    private static final int NON_ASCII = -1;
+
+    private static final int[] TYPES = new int[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++)
+            TYPES[c] |= LETTER;
+        for (char c = 'A'; c <= 'Z'; c++)
+            TYPES[c] |= LETTER;
+        for (char c = '0'; c <= '9'; c++)
+            TYPES[c] |= DIGIT;
+        setType("\"'-._", MID_WORD);
+        setType("\"',.", MID_NUM);
+        setType("#$.", PRE_NUM);
+        setType("%&", POST_NUM);
+        setType(" \t", SPACE);
+        setType("\r", CR);
+        setType("\n\f", LINE);
+    }
+
+    private AsciiWordBoundary_Common() {
+    }
+
+    private static void setType(String chars, int type) {
+        for (int i = 0; i < chars.length(); i++)
+            TYPES[chars.charAt(i)] |= type;
+    }
+
+    /**
+     * End of the token starting at {@code start}, or -1 if finding it means looking at a
+     * character outside ASCII; the caller then has to ask the BreakIterator. The token
+     * is followed by the end of the range or an ASCII character, because any non-ASCII
+     * character may join the token before it (combining marks, letters, no-break spaces).
+     */
+    static int wordEnd(CharSequence text, int start, int limit) {
+        int type = type(text, start);
+        if (type == NON_ASCII)
+            return -1;
+        int end;
+        if ((type & (LETTER | DIGIT)) != 0) {
+            end = wordOrNumberEnd(text, start, limit);
+        } else if ((type & PRE_NUM) != 0 && start + 1 < limit) {
+            int next = type(text, start + 1);
+            if (next == NON_ASCII)
+                return -1;
+            end = (next & DIGIT) != 0 ? wordOrNumberEnd(text, start + 1, limit) : start + 1;
+        } else if ((type & (SPACE | CR | LINE)) != 0) {
+            end = spaceEnd(text, start, limit);
+        } else {
+            end = start + 1;
+        }
+        return end >= 0 && end < limit && text.charAt(end) >= 128 ? -1 : end;
+    }
+
+    /**
+     * Alternating runs of letters and digits, each run allowed to contain single
+     * joining punctuation characters, then an optional number suffix.
+     */
+    private static int wordOrNumberEnd(CharSequence text, int i, int limit) {
+        int last = 0;
+        while (i < limit) {
+            int type = type(text, i);
+            if (type == NON_ASCII)
+                return -1;
+            int run = type & (LETTER | DIGIT);
+            if (run == 0)
+                break;
+            int mid = run == LETTER ? MID_WORD : MID_NUM;
+            i++;
+            while (i < limit) {
+                type = type(text, i);
+                if (type == NON_ASCII)
+                    return -1;
+                if ((type & run) != 0) {
+                    i++;
+                } else if ((type & mid) != 0 && i + 1 < limit) {
+                    int next = type(text, i + 1);
+                    if (next == NON_ASCII)
+                        return -1;
+                    if ((next & run) == 0)
+                        break;
+                    i += 2;
+                } else {
+                    break;
+                }
+            }
+            last = run;
+        }
+        if (last == DIGIT && i < limit) {
+            int type = type(text, i);
+            if (type == NON_ASCII)
+                return -1;
+            if ((type & POST_NUM) != 0)
+                i++;
+        }
+        return i;
+    }
+
+    private static int spaceEnd(CharSequence text, int i, int limit) {
+        int type = 0;
+        while (i < limit && (type = type(text, i)) != NON_ASCII && (type & SPACE) != 0)
+            i++;
+        if (i < limit && type != NON_ASCII && (type & CR) != 0 && ++i < limit)
+            type = type(text, i);
+        if (i < limit && type != NON_ASCII && (type & LINE) != 0)
+            i++;
+        return i;
+    }
+
+    private static int type(CharSequence text, int i) {
+        char c = text.charAt(i);
+        return c < 128 ? TYPES[c] : NON_ASCII;
+    }
+}
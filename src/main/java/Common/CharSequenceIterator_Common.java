@@ -0,0 +1,78 @@
+package Common;
+
+import java.text.CharacterIterator;
+
+/**
+ * Reusable {@link CharacterIterator} over a range of any CharSequence, so a
+ * BreakIterator can walk page text without copying it.
+ */
+public final class CharSequenceIterator_Common implements CharacterIterator {
+
+    private CharSequence text;
+    private int begin;
+    private int end;
+    private int index;
+
+    public CharSequenceIterator_Common reset(CharSequence text, int begin, int end) {
+        this.text = text;
+        this.begin = begin;
+        this.end = end;
+        this.index = begin;
+        return this;
+    }
+
+    public char first() {
+        index = begin;
+        return current();
+    }
+
+    public char last() {
+        index = end > begin ? end - 1 : end;
+        return current();
+    }
+
+    public char current() {
+        return index >= begin && index < end ? text.charAt(index) : DONE;
+    }
+
+    public char next() {
+        if (index < end)
+            index++;
+        return current();
+    }
+
+    public char previous() {
+        if (index <= begin)
+            return DONE;
+        index--;
+        return current();
+    }
+
+    public char setIndex(int position) {
+        if (position < begin || position > end)
+            throw new IllegalArgumentException("Invalid index " + position);
+        index = position;
+        return current();
+    }
+
+    public int getBeginIndex() {
+        return begin;
+    }
+
+    public int getEndIndex() {
+        return end;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Object clone() {
+        return new CharSequenceIterator_Common().reset(text, begin, end).setPosition(index);
+    }
+
+    private CharSequenceIterator_Common setPosition(int position) {
+        index = position;
+        return this;
+    }
+}
@@ -0,0 +1,114 @@
+package Common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Progress of a run that can be resumed: the byte offset just past the last page that
+ * was counted, how many pages that was, and the counts so far. Stored gzipped with the
+ * dump's name and size, so a checkpoint is never applied to a different file. Words are
+ * WTF-8 encoded like in {@link FrequencyIndex_Common}, so unpaired surrogates survive a resume.
+ */
+public class Checkpoint_Common {
+
+    private static final int MAGIC = 0x57434350; // "WCCP"
+    private static final int VERSION = 1;
+
+    private final String dumpName;
+    private final long dumpSize;
+    private final long offset;
+    private final int pages;
+    private final WordCountTable_Common counts;
+
+    public Checkpoint_Common(String dumpName, long dumpSize, long offset, int pages, WordCountTable_Common counts) {
+        this.dumpName = dumpName;
+        this.dumpSize = dumpSize;
+        this.offset = offset;
+        this.pages = pages;
+        this.counts = counts;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    public WordCountTable_Common getCounts() {
+        return counts;
+    }
+
+    public boolean matches(Path dump) throws IOException {
+        return dump.getFileName().toString().equals(dumpName) && Files.size(dump) == dumpSize;
+    }
+
+    /**
+     * Writes to a temporary file next to {@code file} and renames it over {@code file},
+     * so a crash during the write leaves the previous checkpoint intact.
+     */
+    public void write(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(dumpName);
+            out.writeLong(dumpSize);
+            out.writeLong(offset);
+            out.writeInt(pages);
+            out.writeInt(counts.size());
+            for (int entry = 0; entry < counts.size(); entry++) {
+                byte[] word = FrequencyIndex_Common.encode(counts.word(entry));
+                out.writeInt(word.length);
+                out.write(word);
+                out.writeLong(counts.count(entry));
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * The checkpoint in {@code file}, or null if there is none.
+     */
+    public static Checkpoint_Common read(Path file) throws IOException {
+        if (!Files.exists(file))
+            return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 1 << 16)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Not a checkpoint file: " + file);
+            String dumpName = in.readUTF();
+            long dumpSize = in.readLong();
+            long offset = in.readLong();
+            int pages = in.readInt();
+            int size = in.readInt();
+            WordCountTable_Common counts = new WordCountTable_Common(size);
+            byte[] word = new byte[64];
+            for (int i = 0; i < size; i++) {
+                int length = in.readInt();
+                if (length > word.length)
+                    word = new byte[Math.max(length, word.length * 2)];
+                in.readFully(word, 0, length);
+                counts.add(FrequencyIndex_Common.decode(word, length), in.readLong());
+            }
+            return new Checkpoint_Common(dumpName, dumpSize, offset, pages, counts);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package Common;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a checkpoint every {@code interval} pages from the thread that merges counts.
+ * That thread only copies the table; compression and disk I/O run on a background
+ * writer, and if the previous write is still running the checkpoint is skipped rather
+ * than waited for, so neither the merging thread nor the workers ever block on disk.
+ * A failed write is rethrown by the next checkpoint or by {@link #finish()}.
+ * The checkpoint must only describe pages whose counts are all in the table, which
+ * callers ensure by merging in page order.
+ */
+public class Checkpointer_Common {
+
+    private final Path file;
+    private final Path dump;
+    private final int interval;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> pending;
+    private int lastPages;
+
+    public Checkpointer_Common(String file, String dumpFile, int interval) {
+        this.file = Paths.get(file);
+        this.dump = Paths.get(dumpFile);
+        this.interval = interval;
+    }
+
+    /**
+     * The checkpoint to resume from, or null to start at the beginning of the dump.
+     */
+    public Checkpoint_Common resume() throws IOException {
+        Checkpoint_Common checkpoint = Checkpoint_Common.read(file);
+        if (checkpoint == null)
+            return null;
+        if (!checkpoint.matches(dump)) {
+            System.out.println("Ignoring checkpoint " + file + ": it was written for a different dump");
+            return null;
+        }
+        lastPages = checkpoint.getPages();
+        System.out.println("Resuming from checkpoint: " + checkpoint.getPages() + " pages, offset " + checkpoint.getOffset());
+        return checkpoint;
+    }
+
+    /**
+     * Called after the pages up to {@code offset} have been merged into {@code counts}.
+     */
+    public void pagesMerged(long offset, int pages, WordCountTable_Common counts) throws IOException {
+        if (pages - lastPages < interval || (pending != null && !pending.isDone()))
+            return;
+        checkWritten();
+        lastPages = pages;
+        Checkpoint_Common checkpoint = new Checkpoint_Common(dump.getFileName().toString(), Files.size(dump),
+                offset, pages, counts.copy());
+        pending = writer.submit(() -> {
+            checkpoint.write(file);
+            return null;
+        });
+    }
+
+    /**
+     * Waits for the last write and removes the checkpoint: a finished run needs none.
+     */
+    public void finish() throws Exception {
+        writer.shutdown();
+        writer.awaitTermination(1, TimeUnit.MINUTES);
+        checkWritten();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Waits for the last write and rethrows its failure.
+     */
+    private void checkWritten() throws IOException {
+        if (pending == null)
+            return;
+        try {
+            pending.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Could not write checkpoint " + file, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing checkpoint " + file);
+        }
+        pending = null;
+    }
+}
@@ -0,0 +1,93 @@
+package Common;
+
+/**
+ * Count-Min sketch over words. Each word is hashed once to 64 bits from its chars, and
+ * every row mixes that hash with its own seed, so words that merely share a 32-bit
+ * hash code do not collide in every row. With width = ceil(e / epsilon) and
+ * depth = ceil(ln(1 / delta)), an estimate exceeds the true count by more than
+ * epsilon * N with probability at most delta, where N is the total added. Memory is
+ * width * depth longs, whatever the vocabulary size.
+ */
+public class CountMinSketch_Common {
+
+    private final double epsilon;
+    private final double delta;
+    private final int width;
+    private final int depth;
+    private final long[] cells;
+    private long total;
+
+    public CountMinSketch_Common(double epsilon, double delta) {
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.cells = new long[width * depth];
+    }
+
+    public void add(CharSequence text, int offset, int length, long count) {
+        long hash = hash64(text, offset, length);
+        for (int row = 0; row < depth; row++)
+            cells[row * width + column(hash, row)] += count;
+        total += count;
+    }
+
+    public long estimate(CharSequence text, int offset, int length) {
+        long hash = hash64(text, offset, length);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++)
+            estimate = Math.min(estimate, cells[row * width + column(hash, row)]);
+        return estimate;
+    }
+
+    /**
+     * Element-wise add; both sketches must have been built with the same epsilon and delta.
+     */
+    public void merge(CountMinSketch_Common other) {
+        if (other.width != width || other.depth != depth)
+            throw new IllegalArgumentException("Sketch dimensions differ");
+        for (int i = 0; i < cells.length; i++)
+            cells[i] += other.cells[i];
+        total += other.total;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    /**
+     * Largest overestimate allowed by the sketch with probability 1 - delta.
+     */
+    public long errorBound() {
+        return (long) Math.ceil(epsilon * total);
+    }
+
+    private int column(long hash, int row) {
+        long h = mix(hash + (row + 1) * 0x9E3779B97F4A7C15L);
+        return (int) ((h & 0x7FFFFFFFFFFFFFFFL) % width);
+    }
+
+    /**
+     * FNV-1a over the chars, then the murmur3 finalizer, so all 64 bits depend on every char.
+     */
+    static long hash64(CharSequence text, int offset, int length) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = offset; i < offset + length; i++)
+            h = (h ^ text.charAt(i)) * 0x100000001B3L;
+        return mix(h ^ length);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
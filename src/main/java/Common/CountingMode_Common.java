@@ -0,0 +1,26 @@
+package Common;
+
+public enum CountingMode_Common {
+    /**
+     * Every task counts into its own table; tables are merged when tasks finish.
+     */
+    PER_TASK,
+    /**
+     * All tasks count into one {@link StripedWordCountTable_Common}; there is no merge phase.
+     */
+    SHARED,
+    /**
+     * Every thread counts into a fixed-size sketch; see {@link ApproximateCounts_Common}.
+     */
+    APPROXIMATE,
+    /**
+     * Words get int ids from one shared dictionary and every thread counts into an int[];
+     * see {@link DictionaryCounts_Common}.
+     */
+    DICTIONARY,
+    /**
+     * Every thread counts into its own table, and the tables are merged in parallel by
+     * hash stripe; see {@link PartitionedCounts_Common}.
+     */
+    PARTITIONED
+}
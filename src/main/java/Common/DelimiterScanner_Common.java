@@ -0,0 +1,51 @@
+package Common;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The inner search loop of page extraction: finding one byte such as {@code <} or
+ * {@code &} in the raw dump. The default methods are plain scalar loops. When the
+ * classes built with {@code mvn -Pvector} are present and the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}, {@link #DEFAULT} is the Vector API version,
+ * which compares a whole SIMD register of bytes per step; otherwise it is
+ * {@link #SCALAR}. {@code -Dwordcount.vector=false} forces the scalar loops.
+ */
+public interface DelimiterScanner_Common {
+
+    DelimiterScanner_Common SCALAR = new DelimiterScanner_Common() {
+    };
+
+    DelimiterScanner_Common DEFAULT = load();
+
+    default int indexOf(ByteBuffer buffer, byte value, int from, int to) {
+        for (int i = from; i < to; i++)
+            if (buffer.get(i) == value)
+                return i;
+        return -1;
+    }
+
+    default int indexOf(byte[] bytes, byte value, int from, int to) {
+        for (int i = from; i < to; i++)
+            if (bytes[i] == value)
+                return i;
+        return -1;
+    }
+
+    default String name() {
+        return "scalar";
+    }
+
+    /**
+     * The Vector API scanner if it can be loaded, else {@link #SCALAR}.
+     */
+    static DelimiterScanner_Common load() {
+        if (!Boolean.parseBoolean(System.getProperty("wordcount.vector", "true")))
+            return SCALAR;
+        try {
+            return (DelimiterScanner_Common) Class.forName("Common.VectorScanner_Common").getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not built with -Pvector, or jdk.incubator.vector is not in the module graph.
+            return SCALAR;
+        }
+    }
+}
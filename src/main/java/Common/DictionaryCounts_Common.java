@@ -0,0 +1,37 @@
+package Common;
+
+/**
+ * Exact counts shared by all worker threads through one {@link WordDictionary_Common}.
+ * Every thread counts into its own {@link IdCounts_Common}, so the hot path is a
+ * dictionary read and an array increment, and the per-thread arrays are summed once the
+ * workers are done.
+ */
+public class DictionaryCounts_Common implements WordCounter_Common {
+
+    private final WordDictionary_Common dictionary = new WordDictionary_Common();
+    private final PerThread_Common<IdCounts_Common> local = new PerThread_Common<>(() -> new IdCounts_Common(dictionary));
+
+    public void add(CharSequence text, int offset, int length) {
+        local.get().add(text, offset, length);
+    }
+
+    /**
+     * Sums the counters of every thread that took part into a table, for reporting.
+     * Call once, after all workers have finished; the per-thread counters are released.
+     */
+    public WordCountTable_Common merge() {
+        long[] totals = new long[dictionary.size()];
+        for (IdCounts_Common counter : local.values())
+            counter.addTo(totals);
+        local.release();
+        WordCountTable_Common table = new WordCountTable_Common(totals.length);
+        for (int id = 0; id < totals.length; id++)
+            if (totals[id] > 0)
+                table.add(dictionary.word(id), totals[id]);
+        return table;
+    }
+
+    public WordDictionary_Common getDictionary() {
+        return dictionary;
+    }
+}
@@ -0,0 +1,461 @@
+package Common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * On-disk word → count table, sorted by the words' WTF-8 bytes: UTF-8, except that an
+ * unpaired surrogate is written as the three bytes of its own value, so distinct words
+ * always get distinct keys, in the order {@link WordCountTable_Common} sorts them.
+ * <p>
+ * Layout: a 32 byte header (magic, version, entry count, block count, total count,
+ * index offset), then blocks of {@value #BLOCK_ENTRIES} entries, then the sparse index
+ * holding each block's file offset. Each entry is {@code shared, suffixLength, suffix,
+ * count}, where {@code shared} is the number of leading bytes it has in common with
+ * the previous word; it is always 0 for the first word of a block, so a lookup binary
+ * searches the first words of the blocks and then decodes a single block. Integers in
+ * the blocks are unsigned LEB128 varints.
+ */
+public class FrequencyIndex_Common {
+
+    private static final int MAGIC = 0x57434649; // "WCFI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    static final int BLOCK_ENTRIES = 64;
+
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+    private final int blockCount;
+    private final long total;
+    private final int indexOffset;
+
+    private FrequencyIndex_Common(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            throw new IOException("Not a frequency index");
+        entryCount = buffer.getInt(8);
+        blockCount = buffer.getInt(12);
+        total = buffer.getLong(16);
+        indexOffset = (int) buffer.getLong(24);
+    }
+
+    public static FrequencyIndex_Common open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Index larger than one mapping: " + file);
+            return new FrequencyIndex_Common(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Count of the word, or 0 if it never occurred.
+     */
+    public long get(String word) {
+        byte[] target = encode(word);
+        int block = findBlock(target);
+        if (block < 0)
+            return 0;
+        Cursor cursor = new Cursor(block);
+        while (cursor.next()) {
+            int comparison = cursor.compareTo(target);
+            if (comparison == 0)
+                return cursor.count;
+            if (comparison > 0)
+                return 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Calls {@code action} for every word starting with {@code prefix}, in order.
+     */
+    public void forEachWithPrefix(String prefix, ObjLongConsumer<String> action) {
+        byte[] target = encode(prefix);
+        Cursor cursor = new Cursor(Math.max(0, findBlock(target)));
+        while (cursor.next()) {
+            if (cursor.startsWith(target))
+                action.accept(cursor.word(), cursor.count);
+            else if (cursor.compareTo(target) > 0)
+                return;
+        }
+    }
+
+    /**
+     * Last block whose first word is not greater than {@code target}, or -1.
+     */
+    private int findBlock(byte[] target) {
+        int low = 0;
+        int high = blockCount - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Cursor cursor = new Cursor(mid);
+            cursor.next();
+            if (cursor.compareTo(target) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private int blockOffset(int block) {
+        return (int) buffer.getLong(indexOffset + block * 8);
+    }
+
+    /**
+     * Decodes entries from the start of a block to the end of the table.
+     */
+    private final class Cursor {
+        private int position;
+        private int remaining;
+        private byte[] key = new byte[64];
+        private int keyLength;
+        long count;
+
+        Cursor(int block) {
+            remaining = Math.max(0, entryCount - block * BLOCK_ENTRIES);
+            position = remaining > 0 ? blockOffset(block) : indexOffset;
+        }
+
+        boolean next() {
+            if (remaining == 0)
+                return false;
+            remaining--;
+            int shared = readVarInt();
+            int suffix = readVarInt();
+            keyLength = shared + suffix;
+            if (keyLength > key.length)
+                key = Arrays.copyOf(key, Math.max(keyLength, key.length * 2));
+            for (int i = 0; i < suffix; i++)
+                key[shared + i] = buffer.get(position++);
+            count = readVarLong();
+            return true;
+        }
+
+        int compareTo(byte[] target) {
+            int length = Math.min(keyLength, target.length);
+            for (int i = 0; i < length; i++)
+                if (key[i] != target[i])
+                    return (key[i] & 0xFF) - (target[i] & 0xFF);
+            return keyLength - target.length;
+        }
+
+        boolean startsWith(byte[] prefix) {
+            if (keyLength < prefix.length)
+                return false;
+            for (int i = 0; i < prefix.length; i++)
+                if (key[i] != prefix[i])
+                    return false;
+            return true;
+        }
+
+        String word() {
+            return decode(key, keyLength);
+        }
+
+        private int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+        }
+    }
+
+    public static void write(Path file, StripedWordCountTable_Common counts) throws IOException {
+        WordCountTable_Common[] stripes = new WordCountTable_Common[counts.stripeCount()];
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = counts.stripe(i);
+        write(file, stripes);
+    }
+
+    /**
+     * Writes the combined counts of the tables, streaming them in sorted order straight
+     * from each table's arena: the tables are sorted by entry number and merged, and a
+     * word present in several tables is written once with the sum of its counts. The
+     * cursors wait in a priority queue keyed by their current word, so each word costs
+     * O(log tables) however many stripes there are.
+     * The file is written next to {@code file} and renamed over it when complete.
+     */
+    public static void write(Path file, WordCountTable_Common... tables) throws IOException {
+        PriorityQueue<TableCursor> cursors = new PriorityQueue<>(Math.max(1, tables.length), TableCursor::compareTo);
+        for (WordCountTable_Common table : tables)
+            if (table != null && table.size() > 0)
+                cursors.add(new TableCursor(table));
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel, HEADER_SIZE);
+            long[] blockOffsets = new long[64];
+            int entryCount = 0;
+            long total = 0;
+            byte[] previous = new byte[64];
+            int previousLength = 0;
+            byte[] key = new byte[64];
+            char[] word = new char[64];
+            while (!cursors.isEmpty()) {
+                TableCursor first = cursors.poll();
+                int wordLength = first.length;
+                if (wordLength > word.length)
+                    word = new char[Math.max(wordLength, word.length * 2)];
+                System.arraycopy(first.chars, 0, word, 0, wordLength);
+                long count = first.count();
+                if (first.advance())
+                    cursors.add(first);
+                // Words are unique within a table, so any other cursor on this word is another table's.
+                while (!cursors.isEmpty() && cursors.peek().compareTo(word, wordLength) == 0) {
+                    TableCursor same = cursors.poll();
+                    count += same.count();
+                    if (same.advance())
+                        cursors.add(same);
+                }
+
+                if (wordLength * 3 > key.length)
+                    key = new byte[Math.max(wordLength * 3, key.length * 2)];
+                int keyLength = encode(word, wordLength, key);
+                int shared = 0;
+                if (entryCount % BLOCK_ENTRIES == 0) {
+                    int block = entryCount / BLOCK_ENTRIES;
+                    if (block == blockOffsets.length)
+                        blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+                    blockOffsets[block] = out.position();
+                } else {
+                    int limit = Math.min(keyLength, previousLength);
+                    while (shared < limit && key[shared] == previous[shared])
+                        shared++;
+                }
+                out.writeVarLong(shared);
+                out.writeVarLong(keyLength - shared);
+                out.write(key, shared, keyLength - shared);
+                out.writeVarLong(count);
+                byte[] swap = previous;
+                previous = key;
+                key = swap;
+                previousLength = keyLength;
+                entryCount++;
+                total += count;
+            }
+
+            int blockCount = (entryCount + BLOCK_ENTRIES - 1) / BLOCK_ENTRIES;
+            long indexOffset = out.position();
+            for (int block = 0; block < blockCount; block++)
+                out.writeLong(blockOffsets[block]);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(entryCount).putInt(blockCount)
+                    .putLong(total).putLong(indexOffset).flip();
+            while (header.hasRemaining())
+                channel.write(header, header.position());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static byte[] encode(String word) {
+        byte[] key = new byte[word.length() * 3];
+        return Arrays.copyOf(key, encode(word.toCharArray(), word.length(), key));
+    }
+
+    /**
+     * WTF-8 encoding of {@code length} chars into {@code out}, which must hold 3 bytes
+     * per char. An unpaired surrogate is encoded like any other char of its value.
+     */
+    private static int encode(char[] chars, int length, byte[] out) {
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                out[n++] = (byte) c;
+            } else if (c < 0x800) {
+                out[n++] = (byte) (0xC0 | c >> 6);
+                out[n++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars[i + 1])) {
+                int codePoint = Character.toCodePoint(c, chars[++i]);
+                out[n++] = (byte) (0xF0 | codePoint >> 18);
+                out[n++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                out[n++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                out[n++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                out[n++] = (byte) (0xE0 | c >> 12);
+                out[n++] = (byte) (0x80 | c >> 6 & 0x3F);
+                out[n++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Inverse of {@link #encode(char[], int, byte[])}; the bytes are well formed, since
+     * only that method writes them.
+     */
+    static String decode(byte[] bytes, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; ) {
+            int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                word.append((char) b);
+                i++;
+            } else if (b < 0xE0) {
+                word.append((char) ((b & 0x1F) << 6 | bytes[i + 1] & 0x3F));
+                i += 2;
+            } else if (b < 0xF0) {
+                word.append((char) ((b & 0x0F) << 12 | (bytes[i + 1] & 0x3F) << 6 | bytes[i + 2] & 0x3F));
+                i += 3;
+            } else {
+                word.appendCodePoint((b & 0x07) << 18 | (bytes[i + 1] & 0x3F) << 12 | (bytes[i + 2] & 0x3F) << 6 | bytes[i + 3] & 0x3F);
+                i += 4;
+            }
+        }
+        return word.toString();
+    }
+
+    /**
+     * Walks one table in sorted order, holding the current word's characters.
+     */
+    private static final class TableCursor {
+        private final WordCountTable_Common table;
+        private final int[] order;
+        private int index;
+        char[] chars = new char[64];
+        int length;
+
+        TableCursor(WordCountTable_Common table) {
+            this.table = table;
+            this.order = table.sortedEntries();
+            load();
+        }
+
+        long count() {
+            return table.count(order[index]);
+        }
+
+        boolean advance() {
+            if (++index == order.length)
+                return false;
+            load();
+            return true;
+        }
+
+        int compareTo(TableCursor other) {
+            return compareTo(other.chars, other.length);
+        }
+
+        int compareTo(char[] word, int wordLength) {
+            return WordCountTable_Common.compareCodePoints(chars, 0, length, word, 0, wordLength);
+        }
+
+        private void load() {
+            int entry = order[index];
+            length = table.wordLength(entry);
+            if (length > chars.length)
+                chars = new char[Math.max(length, chars.length * 2)];
+            table.getChars(entry, chars, 0);
+        }
+    }
+
+    /**
+     * Buffered sequential writes to a channel, starting at a given file position.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private long flushed;
+
+        Output(FileChannel channel, long start) {
+            this.channel = channel;
+            this.flushed = start;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining())
+                    flush();
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        void writeVarLong(long value) throws IOException {
+            if (buffer.remaining() < 10)
+                flush();
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) (value & 0x7F | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeLong(long value) throws IOException {
+            if (buffer.remaining() < 8)
+                flush();
+            buffer.putLong(value);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                flushed += channel.write(buffer, flushed);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Looks words up in an index: {@code FrequencyIndex_Common <index> [word ...]
+     * [--prefix=p]}. Without words or a prefix, prints the index size.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: FrequencyIndex_Common <index> [word ...] [--prefix=p]");
+            return;
+        }
+        FrequencyIndex_Common index = open(Paths.get(args[0]));
+        System.out.println("Words: " + index.size() + ", total count: " + index.getTotal());
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--prefix="))
+                index.forEachWithPrefix(args[i].substring("--prefix=".length()),
+                        (word, count) -> System.out.println(word + "\t" + count));
+            else
+                System.out.println(args[i] + "\t" + index.get(args[i]));
+        }
+    }
+}
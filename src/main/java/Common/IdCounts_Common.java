@@ -0,0 +1,35 @@
+package Common;
+
+import java.util.Arrays;
+
+/**
+ * Word counts of one thread, indexed by {@link WordDictionary_Common} id: one int per
+ * word, and merging is a plain array add. Not thread-safe.
+ */
+public class IdCounts_Common implements WordCounter_Common {
+
+    private final WordDictionary_Common dictionary;
+    private final WordSlice_Common slice = new WordSlice_Common();
+    private int[] counts;
+
+    public IdCounts_Common(WordDictionary_Common dictionary) {
+        this.dictionary = dictionary;
+        this.counts = new int[Math.max(1024, dictionary.size())];
+    }
+
+    public void add(CharSequence text, int offset, int length) {
+        int id = dictionary.id(slice.set(text, offset, length));
+        if (id >= counts.length)
+            counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+        counts[id]++;
+    }
+
+    /**
+     * Adds these counts to {@code totals}, which must hold every id counted here.
+     */
+    public void addTo(long[] totals) {
+        int[] counts = this.counts;
+        for (int id = 0, n = Math.min(counts.length, totals.length); id < n; id++)
+            totals[id] += counts[id];
+    }
+}
@@ -0,0 +1,140 @@
+package Common;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * Page source that memory-maps the dump and scans it with {@link PageScanner_Common}
+ * instead of building StAX events. Files larger than one mapping are read through a
+ * sliding window that always restarts at a page boundary.
+ */
+public class MappedPages_Common<P> implements Iterable<P> {
+
+    static final long WINDOW_SIZE = 1L << 30;
+
+    private final int maxPages;
+    private final String fileName;
+    private final PageFactory<P> newPage;
+
+    public MappedPages_Common(int maxPages, String fileName, BiFunction<String, String, P> newPage) {
+        this(maxPages, fileName, (PageScanner_Common scanner, MappedByteBuffer window) ->
+                newPage.apply(scanner.title(window), scanner.text(window)));
+    }
+
+    private MappedPages_Common(int maxPages, String fileName, PageFactory<P> newPage) {
+        this.maxPages = maxPages;
+        this.fileName = fileName;
+        this.newPage = newPage;
+    }
+
+    /**
+     * Pages whose text is left undecoded as a {@link TextSpan_Common} over the mapping;
+     * only titles are decoded while reading.
+     */
+    public static <P> MappedPages_Common<P> lazy(int maxPages, String fileName, BiFunction<String, TextSpan_Common, P> newPage) {
+        return new MappedPages_Common<>(maxPages, fileName, (PageScanner_Common scanner, MappedByteBuffer window) ->
+                newPage.apply(scanner.title(window), new TextSpan_Common(window, scanner.getTextStart(), scanner.getTextEnd())));
+    }
+
+    private interface PageFactory<P> {
+        P create(PageScanner_Common scanner, MappedByteBuffer window);
+    }
+
+    public class PageIterator implements Iterator<P> {
+
+        private final FileChannel channel;
+        private final long fileSize;
+        private final PageScanner_Common scanner = new PageScanner_Common();
+        private MappedByteBuffer window;
+        private long windowStart;
+        private int position;
+        private int remainingPages;
+        private boolean found;
+
+        PageIterator(long startOffset) throws IOException {
+            remainingPages = maxPages;
+            System.out.println("Max pages: " + maxPages);
+            channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+            fileSize = channel.size();
+            map(startOffset);
+        }
+
+        private void map(long start) throws IOException {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, fileSize - start));
+            position = 0;
+        }
+
+        public boolean hasNext() {
+            if (found)
+                return true;
+            if (remainingPages <= 0)
+                return false;
+            try {
+                while (!scanner.find(window, position, window.limit())) {
+                    if (windowStart + window.limit() >= fileSize) {
+                        close();
+                        return false;
+                    }
+                    long next = scanner.getPageStart() >= 0
+                            ? windowStart + scanner.getPageStart()
+                            : windowStart + window.limit() - "<page>".length();
+                    if (next <= windowStart)
+                        throw new IllegalStateException("Page at offset " + next + " is larger than the mapping window");
+                    map(next);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            found = true;
+            return true;
+        }
+
+        public P next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            found = false;
+            --remainingPages;
+            P page = newPage.create(scanner, window);
+            position = scanner.getPageEnd();
+            if (remainingPages == 0)
+                close();
+            return page;
+        }
+
+        /**
+         * File offset just past the last page returned by {@link #next()}.
+         */
+        public long position() {
+            return windowStart + position;
+        }
+
+        private void close() {
+            remainingPages = 0;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        public void remove() { throw new UnsupportedOperationException(); }
+    }
+
+    public PageIterator iterator() {
+        return iterator(0);
+    }
+
+    public PageIterator iterator(long startOffset) {
+        try {
+            return new PageIterator(startOffset);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package Common;
+
+/**
+ * Single pass over wikitext that reports the prose between markup as (start, end)
+ * spans of the source text, so the tokenizer never sees markup. Skipped entirely:
+ * templates {@code {{...}}} and tables {@code {|...|}} (both nested), {@code <ref>},
+ * {@code <math>} and similar blocks, comments, other tags, entities, bare URLs and
+ * {@code __MAGIC__} words. Links keep only their visible label: {@code [[target|label]]}
+ * yields {@code label}, {@code [http://url label]} yields {@code label}, and file,
+ * category and interlanguage links are dropped. Works on any CharSequence and
+ * allocates nothing; one instance per thread.
+ */
+public final class MarkupSkipper_Common {
+
+    private static final String[] SKIPPED_BLOCKS = {"ref", "math", "gallery", "syntaxhighlight", "source", "score", "timeline", "chem"};
+    private static final String[] SKIPPED_NAMESPACES = {"file", "image", "category"};
+    // Characters that can start markup; everything else is prose without further checks.
+    private static final boolean[] MARKUP_START = new boolean[128];
+
+    static {
+        for (char c : "{[<&h_".toCharArray())
+            MARKUP_START[c] = true;
+    }
+
+    private CharSequence text;
+    private int position;
+    private int limit;
+    private int start;
+    private int end;
+
+    public MarkupSkipper_Common reset(CharSequence text) {
+        return reset(text, 0, text.length());
+    }
+
+    public MarkupSkipper_Common reset(CharSequence text, int from, int to) {
+        this.text = text;
+        this.position = from;
+        this.limit = to;
+        this.start = this.end = from;
+        return this;
+    }
+
+    /**
+     * Moves to the next non-empty prose span; false at the end of the text.
+     */
+    public boolean next() {
+        while (position < limit) {
+            int proseStart = position;
+            int markup = proseStart;
+            while (markup < limit) {
+                char c = text.charAt(markup);
+                if (c < 128 && MARKUP_START[c] && isMarkup(markup))
+                    break;
+                markup++;
+            }
+            position = markup;
+            if (markup > proseStart) {
+                start = proseStart;
+                end = markup;
+                return true;
+            }
+            if (skip())
+                return true;
+        }
+        return false;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    private boolean isMarkup(int i) {
+        char c = text.charAt(i);
+        switch (c) {
+            case '{':
+                return i + 1 < limit && (text.charAt(i + 1) == '{' || text.charAt(i + 1) == '|');
+            case '[':
+                return i + 1 < limit && (text.charAt(i + 1) == '[' || isUrl(i + 1));
+            case '<': {
+                if (i + 1 >= limit)
+                    return false;
+                char next = text.charAt(i + 1);
+                return next == '/' || next == '!' || isAsciiLetter(next);
+            }
+            case '&':
+                return entityEnd(i) > 0;
+            case 'h':
+                return (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1))) && isUrl(i);
+            case '_':
+                return magicWordEnd(i) > 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Skips the markup at {@link #position}. Returns true if it contains a visible
+     * label, which is then the current span.
+     */
+    private boolean skip() {
+        int i = position;
+        char c = text.charAt(i);
+        char next = i + 1 < limit ? text.charAt(i + 1) : 0;
+        if (c == '{' && next == '{') {
+            position = skipTemplate(i);
+        } else if (c == '{') {
+            position = skipTable(i);
+        } else if (c == '[' && next == '[') {
+            return skipLink(i);
+        } else if (c == '[') {
+            return skipExternalLink(i);
+        } else if (c == '<') {
+            position = skipTag(i);
+        } else if (c == '&') {
+            position = entityEnd(i);
+        } else if (c == 'h') {
+            int j = i;
+            while (j < limit && !Character.isWhitespace(text.charAt(j)))
+                j++;
+            position = j;
+        } else {
+            position = magicWordEnd(i);
+        }
+        return false;
+    }
+
+    private int skipTemplate(int i) {
+        int depth = 0;
+        while (i < limit) {
+            if (startsWith(i, "{{")) {
+                depth++;
+                i += 2;
+            } else if (startsWith(i, "}}")) {
+                i += 2;
+                if (--depth == 0)
+                    return i;
+            } else if (startsWith(i, "<!--")) {
+                i = skipComment(i);
+            } else {
+                i++;
+            }
+        }
+        return limit;
+    }
+
+    private int skipTable(int i) {
+        int depth = 0;
+        while (i < limit) {
+            if (startsWith(i, "{{")) {
+                i = skipTemplate(i);
+            } else if (startsWith(i, "{|")) {
+                depth++;
+                i += 2;
+            } else if (startsWith(i, "|}")) {
+                i += 2;
+                if (--depth == 0)
+                    return i;
+            } else {
+                i++;
+            }
+        }
+        return limit;
+    }
+
+    private boolean skipLink(int open) {
+        int depth = 0;
+        int lastPipe = -1;
+        int colon = -1;
+        int i = open;
+        while (i < limit) {
+            if (startsWith(i, "[[")) {
+                depth++;
+                i += 2;
+            } else if (startsWith(i, "]]")) {
+                if (--depth == 0)
+                    break;
+                i += 2;
+            } else {
+                char c = text.charAt(i);
+                if (depth == 1 && c == '|')
+                    lastPipe = i;
+                else if (depth == 1 && c == ':' && colon < 0 && lastPipe < 0)
+                    colon = i;
+                else if (c == '\n' && depth == 1)
+                    break;
+                i++;
+            }
+        }
+        if (i >= limit || depth != 0) {
+            // Not a link after all; step over the brackets and carry on with prose.
+            position = open + 2;
+            return false;
+        }
+        position = i + 2;
+        if (colon > open + 2 && skippedNamespace(open + 2, colon))
+            return false;
+        start = lastPipe >= 0 ? lastPipe + 1 : open + 2;
+        end = i;
+        return end > start;
+    }
+
+    private boolean skippedNamespace(int from, int to) {
+        for (String namespace : SKIPPED_NAMESPACES)
+            if (to - from == namespace.length() && regionMatchesIgnoreCase(from, namespace))
+                return true;
+        // Interlanguage links such as [[de:Titel]] or [[zh-yue:...]].
+        if (to - from > 6)
+            return false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && c != '-')
+                return false;
+        }
+        return true;
+    }
+
+    private boolean skipExternalLink(int open) {
+        int i = open + 1;
+        while (i < limit && text.charAt(i) != ' ' && text.charAt(i) != ']' && text.charAt(i) != '\n')
+            i++;
+        int labelStart = i < limit && text.charAt(i) == ' ' ? i + 1 : i;
+        int close = labelStart;
+        while (close < limit && text.charAt(close) != ']' && text.charAt(close) != '\n')
+            close++;
+        position = close < limit && text.charAt(close) == ']' ? close + 1 : close;
+        start = labelStart;
+        end = close;
+        return end > start;
+    }
+
+    private int skipTag(int open) {
+        if (startsWith(open, "<!--"))
+            return skipComment(open);
+        int nameStart = open + 1;
+        int nameEnd = nameStart;
+        while (nameEnd < limit && isAsciiLetter(text.charAt(nameEnd)))
+            nameEnd++;
+        int tagEnd = nameEnd;
+        while (tagEnd < limit && text.charAt(tagEnd) != '>' && text.charAt(tagEnd) != '<')
+            tagEnd++;
+        if (tagEnd >= limit || text.charAt(tagEnd) != '>')
+            return Math.min(limit, nameEnd);
+        boolean selfClosing = text.charAt(tagEnd - 1) == '/';
+        if (selfClosing || !isSkippedBlock(nameStart, nameEnd))
+            return tagEnd + 1;
+        // Find the matching close tag </name ...>.
+        int length = nameEnd - nameStart;
+        for (int i = tagEnd + 1; i + length + 2 <= limit; i++) {
+            if (text.charAt(i) == '<' && text.charAt(i + 1) == '/' && regionMatchesIgnoreCase(i + 2, nameStart, length)) {
+                int close = i + 2 + length;
+                while (close < limit && text.charAt(close) != '>')
+                    close++;
+                return Math.min(limit, close + 1);
+            }
+        }
+        return limit;
+    }
+
+    private boolean isSkippedBlock(int from, int to) {
+        for (String name : SKIPPED_BLOCKS)
+            if (to - from == name.length() && regionMatchesIgnoreCase(from, name))
+                return true;
+        return false;
+    }
+
+    private int skipComment(int open) {
+        for (int i = open + 4; i + 3 <= limit; i++)
+            if (startsWith(i, "-->"))
+                return i + 3;
+        return limit;
+    }
+
+    /**
+     * End of an entity such as {@code &nbsp;} or {@code &#8212;} starting at i, or -1.
+     */
+    private int entityEnd(int i) {
+        int j = i + 1;
+        int max = Math.min(limit, i + 12);
+        if (j < max && text.charAt(j) == '#')
+            j++;
+        int nameStart = j;
+        while (j < max && Character.isLetterOrDigit(text.charAt(j)) && text.charAt(j) < 128)
+            j++;
+        return j > nameStart && j < max && text.charAt(j) == ';' ? j + 1 : -1;
+    }
+
+    private int magicWordEnd(int i) {
+        if (!startsWith(i, "__"))
+            return -1;
+        int j = i + 2;
+        while (j < limit && text.charAt(j) >= 'A' && text.charAt(j) <= 'Z')
+            j++;
+        return j > i + 2 && startsWith(j, "__") ? j + 2 : -1;
+    }
+
+    private boolean isUrl(int i) {
+        return startsWith(i, "http://") || startsWith(i, "https://") || startsWith(i, "//");
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private boolean startsWith(int i, String prefix) {
+        if (i + prefix.length() > limit)
+            return false;
+        for (int k = 0; k < prefix.length(); k++)
+            if (text.charAt(i + k) != prefix.charAt(k))
+                return false;
+        return true;
+    }
+
+    private boolean regionMatchesIgnoreCase(int i, String lowerCase) {
+        for (int k = 0; k < lowerCase.length(); k++)
+            if (Character.toLowerCase(text.charAt(i + k)) != lowerCase.charAt(k))
+                return false;
+        return true;
+    }
+
+    private boolean regionMatchesIgnoreCase(int i, int other, int length) {
+        for (int k = 0; k < length; k++)
+            if (Character.toLowerCase(text.charAt(i + k)) != Character.toLowerCase(text.charAt(other + k)))
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,176 @@
+package Common;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Page source for a compressed multistream dump, such as
+ * {@code pages-articles-multistream.xml.bz2}: a concatenation of independently
+ * compressed streams of about 100 pages each, with an index file whose lines are
+ * {@code offset:pageId:title}. Worker threads take whole streams in turn, decompress
+ * each one into memory and scan it with {@link PageScanner_Common}, so decompression
+ * runs in parallel and the XML is never written to disk. Pages are handed over through
+ * a {@link PageQueue_Common}, in no particular order. Which streams are read, and how
+ * many pages of the last one, is decided from the index before decoding, so the pages
+ * returned are always the first {@code maxPages} of the dump.
+ */
+public class MultistreamPages_Common<P> implements Iterable<P> {
+
+    private final int maxPages;
+    private final String fileName;
+    private final String indexFile;
+    private final StreamCodec_Common codec;
+    private final int workers;
+    private final int queueCapacity;
+    private final BiFunction<String, String, P> newPage;
+
+    public MultistreamPages_Common(int maxPages, String fileName, String indexFile, StreamCodec_Common codec,
+                                   int workers, int queueCapacity, BiFunction<String, String, P> newPage) {
+        this.maxPages = maxPages;
+        this.fileName = fileName;
+        this.indexFile = indexFile;
+        this.codec = codec;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.newPage = newPage;
+    }
+
+    public Iterator<P> iterator() {
+        try {
+            FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+            Streams streams = readIndex(indexFile, codec, channel.size());
+            int streamCount = 0;
+            int lastStreamPages = 0;
+            for (int pages = 0; streamCount < streams.pages.length && pages < maxPages; streamCount++) {
+                lastStreamPages = Math.min(streams.pages[streamCount], maxPages - pages);
+                pages += lastStreamPages;
+            }
+            int usedStreams = streamCount;
+            int lastPages = lastStreamPages;
+            int workerCount = Math.max(1, Math.min(workers, usedStreams));
+            System.out.println("Max pages: " + maxPages + " (" + usedStreams + " streams, "
+                    + workerCount + " decompression threads)");
+            long[] offsets = streams.offsets;
+            PageQueue_Common<P> pageQueue = new PageQueue_Common<>(queueCapacity, workerCount);
+            AtomicInteger nextStream = new AtomicInteger();
+            AtomicInteger openWorkers = new AtomicInteger(workerCount);
+            for (int i = 0; i < workerCount; i++) {
+                Thread worker = new Thread(() -> {
+                    try {
+                        PageScanner_Common scanner = new PageScanner_Common();
+                        int stream;
+                        while ((stream = nextStream.getAndIncrement()) < usedStreams) {
+                            ByteBuffer xml = decompress(channel, offsets[stream], offsets[stream + 1]);
+                            int limit = stream == usedStreams - 1 ? lastPages : Integer.MAX_VALUE;
+                            for (int position = 0, taken = 0; taken < limit && scanner.find(xml, position, xml.limit());
+                                 position = scanner.getPageEnd(), taken++)
+                                pageQueue.put(newPage.apply(scanner.title(xml), scanner.text(xml)));
+                        }
+                    } catch (Throwable e) {
+                        pageQueue.fail(e);
+                    } finally {
+                        if (openWorkers.decrementAndGet() == 0)
+                            closeQuietly(channel);
+                        pageQueue.producerDone();
+                    }
+                }, "decompress-" + i);
+                worker.setDaemon(true);
+                worker.start();
+            }
+            return pageQueue.iterator();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private ByteBuffer decompress(FileChannel channel, long from, long to) throws IOException {
+        byte[] compressed = new byte[(int) (to - from)];
+        ByteBuffer target = ByteBuffer.wrap(compressed);
+        while (target.hasRemaining())
+            if (channel.read(target, from + target.position()) < 0)
+                throw new IOException("Unexpected end of " + fileName + " at offset " + (from + target.position()));
+        byte[] xml = new byte[Math.max(64 * 1024, compressed.length * 4)];
+        int length = 0;
+        try (InputStream in = codec.decompress(new ByteArrayInputStream(compressed))) {
+            int read;
+            while ((read = in.read(xml, length, xml.length - length)) >= 0) {
+                length += read;
+                if (length == xml.length)
+                    xml = Arrays.copyOf(xml, xml.length * 2);
+            }
+        }
+        return ByteBuffer.wrap(xml, 0, length);
+    }
+
+    /**
+     * Distinct stream offsets from the index, in file order, followed by the end of the
+     * dump, and the number of index lines (pages) of each stream.
+     */
+    static final class Streams {
+        final long[] offsets;
+        final int[] pages;
+
+        Streams(long[] offsets, int[] pages) {
+            this.offsets = offsets;
+            this.pages = pages;
+        }
+    }
+
+    /**
+     * Reads the stream layout from the index, which may itself be gzip or codec
+     * compressed ({@code .gz} or {@code .bz2}).
+     */
+    static Streams readIndex(String indexFile, StreamCodec_Common codec, long dumpSize) throws IOException {
+        InputStream in = Files.newInputStream(Paths.get(indexFile));
+        if (indexFile.endsWith(".gz"))
+            in = StreamCodec_Common.GZIP.decompress(in);
+        else if (indexFile.endsWith(".bz2"))
+            in = codec.decompress(in);
+        long[] offsets = new long[1024];
+        int[] pages = new int[1024];
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int colon = line.indexOf(':');
+                if (colon <= 0)
+                    continue;
+                long offset = Long.parseLong(line.substring(0, colon));
+                if (count > 0 && offset == offsets[count - 1]) {
+                    pages[count - 1]++;
+                    continue;
+                }
+                if (count > 0 && offset < offsets[count - 1])
+                    throw new IOException("Index offsets are not ascending at " + offset);
+                if (count + 1 == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    pages = Arrays.copyOf(pages, pages.length * 2);
+                }
+                pages[count] = 1;
+                offsets[count++] = offset;
+            }
+        }
+        offsets[count] = dumpSize;
+        return new Streams(Arrays.copyOf(offsets, count + 1), Arrays.copyOf(pages, count));
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package Common;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Builds a multistream dump and its index from an uncompressed dump, in the layout
+ * Wikipedia publishes: the header before the first page, then one compressed stream
+ * per {@code pagesPerStream} pages, with the rest of the file in the last stream.
+ * Usage: {@code MultistreamWriter_Common <dump.xml> <out.xml.gz> <index.txt> [pagesPerStream] [codec]}.
+ */
+public class MultistreamWriter_Common {
+
+    private static final byte[] PAGE_TAG = "<page>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID_OPEN = "<id>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID_CLOSE = "</id>".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: MultistreamWriter_Common <dump.xml> <out> <index> [pagesPerStream] [codec]");
+            return;
+        }
+        int pagesPerStream = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        StreamEncoder_Common codec = StreamEncoder_Common.forName(args.length > 4 ? args[4] : "gzip");
+        try (FileChannel in = FileChannel.open(Paths.get(args[0]), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Paths.get(args[1]), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             PrintWriter index = new PrintWriter(Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8))) {
+            long size = in.size();
+            long start = ShardedPages_Common.indexOf(in, PAGE_TAG, 0, size);
+            if (start < 0)
+                start = size;
+            writeStream(in, 0, start, out, codec);
+            int streams = 0;
+            PageScanner_Common scanner = new PageScanner_Common();
+            while (start < size) {
+                long end = start;
+                for (int page = 0; page < pagesPerStream && end >= 0; page++)
+                    end = ShardedPages_Common.indexOf(in, PAGE_TAG, end + 1, size);
+                if (end < 0)
+                    end = size;
+                long offset = out.position();
+                ByteBuffer xml = writeStream(in, start, end, out, codec);
+                for (int position = 0; scanner.find(xml, position, xml.limit()); position = scanner.getPageEnd())
+                    index.println(offset + ":" + pageId(xml, scanner) + ":" + scanner.title(xml));
+                streams++;
+                start = end;
+            }
+            System.out.println("Wrote " + streams + " streams, " + out.position() + " bytes");
+        }
+    }
+
+    private static ByteBuffer writeStream(FileChannel in, long from, long to, FileChannel out,
+                                          StreamEncoder_Common codec) throws IOException {
+        ByteBuffer xml = ByteBuffer.allocate((int) (to - from));
+        while (xml.hasRemaining())
+            if (in.read(xml, from + xml.position()) < 0)
+                throw new IOException("Unexpected end of input at " + (from + xml.position()));
+        xml.flip();
+        OutputStream compressed = codec.compress(new BufferedOutputStream(new OutputStream() {
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                while (buffer.hasRemaining())
+                    out.write(buffer);
+            }
+        }, 64 * 1024));
+        compressed.write(xml.array(), 0, xml.limit());
+        compressed.close();
+        return xml;
+    }
+
+    private static String pageId(ByteBuffer xml, PageScanner_Common scanner) {
+        int open = PageScanner_Common.indexOf(xml, ID_OPEN, scanner.getPageStart(), scanner.getPageEnd());
+        if (open < 0)
+            return "0";
+        int close = PageScanner_Common.indexOf(xml, ID_CLOSE, open, scanner.getPageEnd());
+        return close < 0 ? "0" : scanner.decode(xml, open + ID_OPEN.length, close);
+    }
+}
@@ -0,0 +1,335 @@
+package Common;
+
+/**
+ * Settings shared by every WordCount engine. Each engine starts from its own defaults
+ * and {@link #parse(String[])} overrides them from {@code --name=value} arguments, so
+ * the same engine can be run from its main method or from the benchmark runner.
+ * Engines ignore tuning settings they do not use, but reject counting modes and the
+ * lazy text and checkpoint options they cannot honour, since those change what is measured.
+ */
+public class Options_Common {
+
+    private int maxPages = 20000;
+    private String fileName = "enwiki-20250201.xml";
+    private int topWords = 3;
+    private int threads = 0;
+    private int parserShards = 1;
+    private boolean mappedReader = false;
+    private boolean lazyText = false;
+    private boolean skipMarkup = false;
+    private TokenizerMode_Common tokenizer = TokenizerMode_Common.BREAK_ITERATOR;
+    private boolean streaming = false;
+    private int queueCapacity = 64;
+    private int maxInFlight = 0;
+    private CountingMode_Common countingMode = CountingMode_Common.PER_TASK;
+    private double approximateEpsilon = 1e-4;
+    private double approximateDelta = 0.01;
+    private String checkpointFile = null;
+    private int checkpointPages = 5000;
+    private String indexFile = null;
+    private String multistreamIndex = null;
+    private String codec = "gzip";
+
+    public Options_Common copy() {
+        Options_Common copy = new Options_Common();
+        copy.maxPages = maxPages;
+        copy.fileName = fileName;
+        copy.topWords = topWords;
+        copy.threads = threads;
+        copy.parserShards = parserShards;
+        copy.mappedReader = mappedReader;
+        copy.lazyText = lazyText;
+        copy.skipMarkup = skipMarkup;
+        copy.tokenizer = tokenizer;
+        copy.streaming = streaming;
+        copy.queueCapacity = queueCapacity;
+        copy.maxInFlight = maxInFlight;
+        copy.countingMode = countingMode;
+        copy.approximateEpsilon = approximateEpsilon;
+        copy.approximateDelta = approximateDelta;
+        copy.checkpointFile = checkpointFile;
+        copy.checkpointPages = checkpointPages;
+        copy.indexFile = indexFile;
+        copy.multistreamIndex = multistreamIndex;
+        copy.codec = codec;
+        return copy;
+    }
+
+    /**
+     * A copy of these options with every recognised {@code --name=value} argument applied.
+     * Unknown arguments are rejected.
+     */
+    public Options_Common parse(String[] args) {
+        Options_Common options = copy();
+        for (String arg : args)
+            if (!options.set(arg))
+                throw new IllegalArgumentException("Unknown option " + arg);
+        return options;
+    }
+
+    /**
+     * Applies one {@code --name=value} argument; returns false if the name is not an option.
+     */
+    public boolean set(String arg) {
+        if (!arg.startsWith("--"))
+            return false;
+        int equals = arg.indexOf('=');
+        String name = equals < 0 ? arg.substring(2) : arg.substring(2, equals);
+        String value = equals < 0 ? "true" : arg.substring(equals + 1);
+        switch (name) {
+            case "pages": maxPages = Integer.parseInt(value); return true;
+            case "file": fileName = value; return true;
+            case "top": topWords = Integer.parseInt(value); return true;
+            case "threads": threads = Integer.parseInt(value); return true;
+            case "shards": parserShards = Integer.parseInt(value); return true;
+            case "mapped": mappedReader = Boolean.parseBoolean(value); return true;
+            case "lazy": lazyText = Boolean.parseBoolean(value); return true;
+            case "skipMarkup": skipMarkup = Boolean.parseBoolean(value); return true;
+            case "tokenizer": tokenizer = TokenizerMode_Common.valueOf(value.toUpperCase()); return true;
+            case "streaming": streaming = Boolean.parseBoolean(value); return true;
+            case "queue": queueCapacity = Integer.parseInt(value); return true;
+            case "inFlight": maxInFlight = Integer.parseInt(value); return true;
+            case "mode": countingMode = CountingMode_Common.valueOf(value.toUpperCase()); return true;
+            case "epsilon": approximateEpsilon = Double.parseDouble(value); return true;
+            case "delta": approximateDelta = Double.parseDouble(value); return true;
+            case "checkpoint": checkpointFile = value; return true;
+            case "checkpointPages": checkpointPages = Integer.parseInt(value); return true;
+            case "index": indexFile = value; return true;
+            case "multistream": multistreamIndex = value; return true;
+            case "codec": codec = value; return true;
+            default: return false;
+        }
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    public Options_Common setMaxPages(int maxPages) {
+        this.maxPages = maxPages;
+        return this;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Options_Common setFileName(String fileName) {
+        this.fileName = fileName;
+        return this;
+    }
+
+    public int getTopWords() {
+        return topWords;
+    }
+
+    public Options_Common setTopWords(int topWords) {
+        this.topWords = topWords;
+        return this;
+    }
+
+    /**
+     * Requested worker threads; 0 means one per available processor.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public int resolveThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public Options_Common setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public int getParserShards() {
+        return parserShards;
+    }
+
+    public Options_Common setParserShards(int parserShards) {
+        this.parserShards = parserShards;
+        return this;
+    }
+
+    public boolean isMappedReader() {
+        return mappedReader;
+    }
+
+    public Options_Common setMappedReader(boolean mappedReader) {
+        this.mappedReader = mappedReader;
+        return this;
+    }
+
+    /**
+     * With the mapped reader, keep page text as undecoded byte ranges until a worker
+     * tokenizes it. Only engines whose pages support {@link TextSpan_Common} use this.
+     */
+    public boolean isLazyText() {
+        return lazyText;
+    }
+
+    public Options_Common setLazyText(boolean lazyText) {
+        this.lazyText = lazyText;
+        return this;
+    }
+
+    /**
+     * Count only the prose of each page; see {@link MarkupSkipper_Common}.
+     */
+    public boolean isSkipMarkup() {
+        return skipMarkup;
+    }
+
+    public Options_Common setSkipMarkup(boolean skipMarkup) {
+        this.skipMarkup = skipMarkup;
+        return this;
+    }
+
+    public TokenizerMode_Common getTokenizer() {
+        return tokenizer;
+    }
+
+    public Options_Common setTokenizer(TokenizerMode_Common tokenizer) {
+        this.tokenizer = tokenizer;
+        return this;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public Options_Common setStreaming(boolean streaming) {
+        this.streaming = streaming;
+        return this;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public Options_Common setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Most page chunks submitted but not yet merged; the reader blocks at this limit.
+     * 0 means twice the number of threads.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int resolveMaxInFlight() {
+        return maxInFlight > 0 ? maxInFlight : 2 * resolveThreads();
+    }
+
+    public Options_Common setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    public CountingMode_Common getCountingMode() {
+        return countingMode;
+    }
+
+    public Options_Common setCountingMode(CountingMode_Common countingMode) {
+        this.countingMode = countingMode;
+        return this;
+    }
+
+    public double getApproximateEpsilon() {
+        return approximateEpsilon;
+    }
+
+    public Options_Common setApproximateEpsilon(double approximateEpsilon) {
+        this.approximateEpsilon = approximateEpsilon;
+        return this;
+    }
+
+    public double getApproximateDelta() {
+        return approximateDelta;
+    }
+
+    public Options_Common setApproximateDelta(double approximateDelta) {
+        this.approximateDelta = approximateDelta;
+        return this;
+    }
+
+    /**
+     * File that progress is saved to and resumed from; null disables checkpointing.
+     */
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public Options_Common setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+        return this;
+    }
+
+    public int getCheckpointPages() {
+        return checkpointPages;
+    }
+
+    public Options_Common setCheckpointPages(int checkpointPages) {
+        this.checkpointPages = checkpointPages;
+        return this;
+    }
+
+    /**
+     * Rejects lazy text and checkpointing where the engine or the chosen reader would
+     * silently ignore them. Lazy text needs the plain mapped reader. A checkpoint records
+     * a byte offset of that reader and its pages are counted straight from it, so neither
+     * combines with parser shards, a multistream dump or streaming.
+     */
+    public void checkReaderOptions(String engine, boolean lazySupported, boolean checkpointSupported) {
+        if (lazyText && !lazySupported)
+            throw new IllegalArgumentException("Lazy page text is not supported by the " + engine + " engine");
+        if (checkpointFile != null && !checkpointSupported)
+            throw new IllegalArgumentException("Checkpointing is not supported by the " + engine + " engine");
+        if (lazyText && (!mappedReader || checkpointFile != null || parserShards > 1 || multistreamIndex != null))
+            throw new IllegalArgumentException("Lazy page text needs the mapped reader, without parser shards, a multistream dump or a checkpoint");
+        if (checkpointFile != null && (parserShards > 1 || multistreamIndex != null || streaming))
+            throw new IllegalArgumentException("Checkpointing does not work with parser shards, a multistream dump or streaming");
+    }
+
+    /**
+     * File the exact counts are written to as a {@link FrequencyIndex_Common}; null for none.
+     */
+    public String getIndexFile() {
+        return indexFile;
+    }
+
+    public Options_Common setIndexFile(String indexFile) {
+        this.indexFile = indexFile;
+        return this;
+    }
+
+    /**
+     * Index of a compressed multistream dump; when set, {@link #getFileName()} is read
+     * with {@link MultistreamPages_Common}.
+     */
+    public String getMultistreamIndex() {
+        return multistreamIndex;
+    }
+
+    public Options_Common setMultistreamIndex(String multistreamIndex) {
+        this.multistreamIndex = multistreamIndex;
+        return this;
+    }
+
+    /**
+     * Stream codec of a multistream dump, see {@link StreamCodec_Common#forName(String)}.
+     */
+    public String getCodec() {
+        return codec;
+    }
+
+    public Options_Common setCodec(String codec) {
+        this.codec = codec;
+        return this;
+    }
+}
@@ -0,0 +1,47 @@
+package Common;
+
+import java.util.Arrays;
+
+/**
+ * Counts the words of one page in two timed passes: the tokenizer first writes every
+ * word's span into a reused buffer (TOKENIZE), then the spans are added to the counter
+ * (COUNT). Keeping the passes apart shows whether tokenizing or map updates limit
+ * scaling. Keeps its tokenizer and buffers, so use one instance per thread.
+ */
+public class PageCounter_Common {
+
+    private final WordTokenizer_Common words;
+    private final StageTimer_Common stages;
+    private int[] starts = new int[4096];
+    private int[] lengths = new int[4096];
+
+    public PageCounter_Common(boolean skipMarkup, TokenizerMode_Common tokenizer, StageTimer_Common stages) {
+        this.words = new WordTokenizer_Common(skipMarkup, tokenizer);
+        this.stages = stages;
+    }
+
+    /**
+     * Adds every word of the page to the counter and returns the number of words.
+     */
+    public int count(CharSequence text, WordCounter_Common counter) {
+        StageTimer_Common.Span tokenize = stages.begin(Stage_Common.TOKENIZE);
+        words.reset(text);
+        int tokens = 0;
+        while (words.next()) {
+            if (tokens == starts.length) {
+                starts = Arrays.copyOf(starts, tokens * 2);
+                lengths = Arrays.copyOf(lengths, tokens * 2);
+            }
+            starts[tokens] = words.start();
+            lengths[tokens] = words.length();
+            tokens++;
+        }
+        tokenize.end(1, text.length(), tokens);
+
+        StageTimer_Common.Span count = stages.begin(Stage_Common.COUNT);
+        for (int i = 0; i < tokens; i++)
+            counter.add(text, starts[i], lengths[i]);
+        count.end(0, 0, tokens);
+        return tokens;
+    }
+}
@@ -0,0 +1,133 @@
+package Common;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded hand-off between page producers (XML readers) and counting workers.
+ * Heap usage is bounded by the queue capacity instead of the number of pages,
+ * and consumers start counting while the producers are still parsing.
+ * Every consumer may iterate the queue; iteration ends once all producers are done.
+ */
+public class PageQueue_Common<P> implements Iterable<P> {
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue;
+    private final AtomicInteger activeProducers;
+    private final AtomicInteger queuedPages = new AtomicInteger();
+    private volatile Throwable failure;
+
+    public PageQueue_Common(int capacity, int producers) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.activeProducers = new AtomicInteger(producers);
+    }
+
+    public static <P> PageQueue_Common<P> fill(Iterable<P> pages, int capacity) {
+        PageQueue_Common<P> pageQueue = new PageQueue_Common<>(capacity, 1);
+        Thread producer = new Thread(() -> {
+            try {
+                for (P page : pages) {
+                    if (page == null)
+                        break;
+                    pageQueue.put(page);
+                }
+            } catch (Throwable e) {
+                pageQueue.fail(e);
+            } finally {
+                pageQueue.producerDone();
+            }
+        }, "page-producer");
+        producer.setDaemon(true);
+        producer.start();
+        return pageQueue;
+    }
+
+    public void put(P page) throws InterruptedException {
+        queue.put(page);
+        queuedPages.incrementAndGet();
+    }
+
+    public void fail(Throwable e) {
+        failure = e;
+    }
+
+    public void producerDone() {
+        if (activeProducers.decrementAndGet() == 0) {
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Blocks until a page is available; returns null once every producer has finished.
+     * The wait goes through {@link ForkJoinPool#managedBlock}, so a fork/join worker
+     * blocked here lets its pool start a spare thread instead of starving it.
+     */
+    @SuppressWarnings("unchecked")
+    public P take() throws InterruptedException {
+        Taker taker = new Taker();
+        ForkJoinPool.managedBlock(taker);
+        Object item = taker.item;
+        if (item == END) {
+            queue.put(END);
+            if (failure != null)
+                throw new RuntimeException(failure);
+            return null;
+        }
+        return (P) item;
+    }
+
+    private final class Taker implements ForkJoinPool.ManagedBlocker {
+        Object item;
+
+        public boolean block() throws InterruptedException {
+            if (item == null)
+                item = queue.take();
+            return true;
+        }
+
+        public boolean isReleasable() {
+            return item != null || (item = queue.poll()) != null;
+        }
+    }
+
+    public int getQueuedPages() {
+        return queuedPages.get();
+    }
+
+    public Iterator<P> iterator() {
+        return new Iterator<P>() {
+            private P next;
+            private boolean done;
+
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    try {
+                        next = take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                    done = next == null;
+                }
+                return next != null;
+            }
+
+            public P next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                P page = next;
+                next = null;
+                return page;
+            }
+        };
+    }
+}
@@ -0,0 +1,223 @@
+package Common;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds {@code <page>}, {@code <title>} and {@code <text>} delimiters directly in the raw
+ * UTF-8 bytes of the dump. Only the title and text spans are ever decoded; XML entities
+ * are resolved in place before the bytes are turned into a String. The byte searches
+ * use {@link DelimiterScanner_Common#DEFAULT}.
+ * A scanner keeps a scratch buffer, so use one instance per thread.
+ */
+public class PageScanner_Common {
+
+    private static final byte[] PAGE_OPEN = ascii("<page>");
+    private static final byte[] PAGE_CLOSE = ascii("</page>");
+    private static final byte[] TITLE_OPEN = ascii("<title>");
+    private static final byte[] TITLE_CLOSE = ascii("</title>");
+    private static final byte[] TEXT_OPEN = ascii("<text");
+    private static final byte[] TEXT_CLOSE = ascii("</text>");
+    private static final DelimiterScanner_Common SCANNER = DelimiterScanner_Common.DEFAULT;
+
+    private byte[] scratch = new byte[64 * 1024];
+
+    private int pageStart;
+    private int pageEnd;
+    private int titleStart;
+    private int titleEnd;
+    private int textStart;
+    private int textEnd;
+
+    /**
+     * Looks for the next complete page in {@code [from, to)} of the buffer. Returns false
+     * when there is no page, or the page is cut off at {@code to}.
+     */
+    public boolean find(ByteBuffer buffer, int from, int to) {
+        pageStart = indexOf(buffer, PAGE_OPEN, from, to);
+        if (pageStart < 0)
+            return false;
+        int close = indexOf(buffer, PAGE_CLOSE, pageStart + PAGE_OPEN.length, to);
+        if (close < 0)
+            return false;
+        pageEnd = close + PAGE_CLOSE.length;
+
+        titleStart = titleEnd = pageStart;
+        int title = indexOf(buffer, TITLE_OPEN, pageStart, close);
+        if (title >= 0) {
+            titleStart = title + TITLE_OPEN.length;
+            titleEnd = Math.max(titleStart, indexOf(buffer, TITLE_CLOSE, titleStart, close));
+        }
+
+        textStart = textEnd = titleEnd;
+        int text = titleEnd;
+        while ((text = indexOf(buffer, TEXT_OPEN, text, close)) >= 0) {
+            byte after = buffer.get(text + TEXT_OPEN.length);
+            if (after == '>' || after == ' ' || after == '/')
+                break;
+            text += TEXT_OPEN.length;
+        }
+        if (text >= 0) {
+            int tagEnd = indexOf(buffer, (byte) '>', text, close);
+            if (tagEnd > 0 && buffer.get(tagEnd - 1) != '/') {
+                textStart = tagEnd + 1;
+                textEnd = Math.max(textStart, indexOf(buffer, TEXT_CLOSE, textStart, close));
+            }
+        }
+        return true;
+    }
+
+    public int getPageStart() {
+        return pageStart;
+    }
+
+    public int getPageEnd() {
+        return pageEnd;
+    }
+
+    public int getTextStart() {
+        return textStart;
+    }
+
+    public int getTextEnd() {
+        return textEnd;
+    }
+
+    public String title(ByteBuffer buffer) {
+        return decode(buffer, titleStart, titleEnd);
+    }
+
+    public String text(ByteBuffer buffer) {
+        return decode(buffer, textStart, textEnd);
+    }
+
+    public String decode(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length <= 0)
+            return "";
+        if (scratch.length < length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        ByteBuffer span = buffer.duplicate();
+        span.limit(end).position(start);
+        span.get(scratch, 0, length);
+        return new String(scratch, 0, unescape(scratch, length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Resolves XML entities in {@code bytes[0, length)} in place and returns the new length.
+     * The UTF-8 form of an entity is never longer than the entity itself.
+     */
+    static int unescape(byte[] bytes, int length) {
+        int read = indexOf(bytes, (byte) '&', 0, length);
+        if (read < 0)
+            return length;
+        int write = read;
+        while (read < length) {
+            byte b = bytes[read];
+            int semicolon;
+            if (b != '&' || (semicolon = indexOf(bytes, (byte) ';', read + 1, Math.min(length, read + 12))) < 0) {
+                bytes[write++] = b;
+                read++;
+                continue;
+            }
+            int codePoint = entity(bytes, read + 1, semicolon);
+            if (codePoint < 0) {
+                bytes[write++] = b;
+                read++;
+                continue;
+            }
+            write = putUtf8(bytes, write, codePoint);
+            read = semicolon + 1;
+        }
+        return write;
+    }
+
+    private static int entity(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (length >= 2 && bytes[start] == '#') {
+            int radix = 10;
+            int digit = start + 1;
+            if (bytes[digit] == 'x' || bytes[digit] == 'X') {
+                radix = 16;
+                digit++;
+            }
+            if (digit == end)
+                return -1;
+            int value = 0;
+            for (; digit < end; digit++) {
+                int d = Character.digit(bytes[digit], radix);
+                if (d < 0 || value > 0x10FFFF)
+                    return -1;
+                value = value * radix + d;
+            }
+            return value <= 0x10FFFF ? value : -1;
+        }
+        if (matches(bytes, start, length, "lt"))
+            return '<';
+        if (matches(bytes, start, length, "gt"))
+            return '>';
+        if (matches(bytes, start, length, "amp"))
+            return '&';
+        if (matches(bytes, start, length, "quot"))
+            return '"';
+        if (matches(bytes, start, length, "apos"))
+            return '\'';
+        return -1;
+    }
+
+    private static boolean matches(byte[] bytes, int start, int length, String name) {
+        if (length != name.length())
+            return false;
+        for (int i = 0; i < length; i++)
+            if (bytes[start + i] != name.charAt(i))
+                return false;
+        return true;
+    }
+
+    private static int putUtf8(byte[] bytes, int at, int codePoint) {
+        if (codePoint < 0x80) {
+            bytes[at++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            bytes[at++] = (byte) (0xC0 | codePoint >> 6);
+            bytes[at++] = (byte) (0x80 | codePoint & 0x3F);
+        } else if (codePoint < 0x10000) {
+            bytes[at++] = (byte) (0xE0 | codePoint >> 12);
+            bytes[at++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            bytes[at++] = (byte) (0x80 | codePoint & 0x3F);
+        } else {
+            bytes[at++] = (byte) (0xF0 | codePoint >> 18);
+            bytes[at++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            bytes[at++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            bytes[at++] = (byte) (0x80 | codePoint & 0x3F);
+        }
+        return at;
+    }
+
+    public static int indexOf(ByteBuffer buffer, byte[] pattern, int from, int to) {
+        byte first = pattern[0];
+        int last = to - pattern.length;
+        for (int i = from; i <= last; i++) {
+            i = SCANNER.indexOf(buffer, first, i, last + 1);
+            if (i < 0)
+                return -1;
+            int j = 1;
+            while (j < pattern.length && buffer.get(i + j) == pattern[j])
+                j++;
+            if (j == pattern.length)
+                return i;
+        }
+        return -1;
+    }
+
+    public static int indexOf(ByteBuffer buffer, byte value, int from, int to) {
+        return SCANNER.indexOf(buffer, value, from, to);
+    }
+
+    static int indexOf(byte[] bytes, byte value, int from, int to) {
+        return SCANNER.indexOf(bytes, value, from, to);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,158 @@
+package Common;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * A splittable page source over a memory-mapped dump, for parallel streams. Each
+ * spliterator owns a byte range of the file and returns the pages that start in it;
+ * {@link #trySplit()} hands the first half of the remaining range to a new spliterator,
+ * cut at the first {@code <page>} tag after the midpoint. Pages are read with
+ * {@link PageScanner_Common} through a window mapping like {@link MappedPages_Common}.
+ * <p>
+ * The constructor counts the {@code <page>} tags up to {@code maxPages}, so the range
+ * ends right after the last page to return and the unsplit spliterator is SIZED. Split
+ * halves only know their byte length and estimate their pages from the average page size.
+ * The channel is not closed here; the mappings stay valid after the caller closes it.
+ */
+public class PageSpliterator_Common<P> implements Spliterator<P> {
+
+    private static final byte[] PAGE_OPEN = "<page>".getBytes(StandardCharsets.US_ASCII);
+    // Ranges smaller than this are not split further.
+    private static final long MIN_SPLIT_BYTES = 256 * 1024;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final BiFunction<String, String, P> newPage;
+    private final double pagesPerByte;
+    private final PageScanner_Common scanner = new PageScanner_Common();
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private final long end;
+    // Exact number of pages left while this spliterator has not been split, else -1.
+    private long remainingPages;
+
+    public PageSpliterator_Common(FileChannel channel, int maxPages, BiFunction<String, String, P> newPage) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.newPage = newPage;
+        long first = -1;
+        long next = -1;
+        int pages = 0;
+        for (long from = 0; from < fileSize; ) {
+            MappedByteBuffer scan = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(MappedPages_Common.WINDOW_SIZE, fileSize - from));
+            int at = 0;
+            while (pages <= maxPages && (at = PageScanner_Common.indexOf(scan, PAGE_OPEN, at, scan.limit())) >= 0) {
+                if (pages == 0)
+                    first = from + at;
+                next = from + at;
+                pages++;
+                at += PAGE_OPEN.length;
+            }
+            if (pages > maxPages || from + scan.limit() >= fileSize)
+                break;
+            // Overlap the windows so a tag across the boundary is found in the next one.
+            from += scan.limit() - PAGE_OPEN.length + 1;
+        }
+        if (pages > maxPages) {
+            // The tag that went over the limit starts the first page not to return.
+            pages = maxPages;
+            this.end = next;
+        } else
+            this.end = fileSize;
+        this.position = first < 0 ? end : first;
+        this.remainingPages = pages;
+        this.pagesPerByte = end > position ? (double) pages / (end - position) : 0;
+    }
+
+    private PageSpliterator_Common(PageSpliterator_Common<P> parent, long position, long end) {
+        this.channel = parent.channel;
+        this.fileSize = parent.fileSize;
+        this.newPage = parent.newPage;
+        this.pagesPerByte = parent.pagesPerByte;
+        this.position = position;
+        this.end = end;
+        this.remainingPages = -1;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super P> action) {
+        if (position >= end)
+            return false;
+        try {
+            if (window == null || position < windowStart || position >= windowStart + window.limit())
+                map(position);
+            while (!scanner.find(window, (int) (position - windowStart), window.limit())) {
+                long next = scanner.getPageStart() >= 0
+                        ? windowStart + scanner.getPageStart()
+                        : windowStart + window.limit() - PAGE_OPEN.length;
+                if (windowStart + window.limit() >= fileSize || next >= end) {
+                    position = end;
+                    return false;
+                }
+                if (next <= windowStart)
+                    throw new IllegalStateException("Page at offset " + next + " is larger than the mapping window");
+                map(next);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (windowStart + scanner.getPageStart() >= end) {
+            position = end;
+            return false;
+        }
+        P page = newPage.apply(scanner.title(window), scanner.text(window));
+        position = windowStart + scanner.getPageEnd();
+        if (remainingPages > 0)
+            remainingPages--;
+        action.accept(page);
+        return true;
+    }
+
+    /**
+     * Maps from {@code start} to the end of the file or one window, whichever is first;
+     * the last page of the range may run past {@link #end}.
+     */
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MappedPages_Common.WINDOW_SIZE, fileSize - start));
+    }
+
+    @Override
+    public Spliterator<P> trySplit() {
+        if (end - position < MIN_SPLIT_BYTES)
+            return null;
+        long boundary;
+        try {
+            boundary = ShardedPages_Common.indexOf(channel, PAGE_OPEN, position + (end - position) / 2, end);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (boundary <= position || boundary >= end)
+            return null;
+        PageSpliterator_Common<P> prefix = new PageSpliterator_Common<>(this, position, boundary);
+        position = boundary;
+        remainingPages = -1;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (remainingPages >= 0)
+            return remainingPages;
+        if (position >= end)
+            return 0;
+        return Math.max(1, Math.round((end - position) * pagesPerByte));
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE | (remainingPages >= 0 ? SIZED : 0);
+    }
+}
@@ -0,0 +1,29 @@
+package Common;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Exact counts where every worker thread counts into its own {@link WordCountTable_Common},
+ * however many tasks it runs, and the per-thread tables are combined at the end by
+ * {@link StripedWordCountTable_Common#merge}, one stripe per worker, instead of being
+ * folded into one table by a single thread.
+ */
+public class PartitionedCounts_Common implements WordCounter_Common {
+
+    private final PerThread_Common<WordCountTable_Common> local = new PerThread_Common<>(WordCountTable_Common::new);
+
+    public void add(CharSequence text, int offset, int length) {
+        local.get().add(text, offset, length);
+    }
+
+    /**
+     * Merges the tables of every thread that took part. Call once, after all workers
+     * have finished; the per-thread tables are released.
+     */
+    public StripedWordCountTable_Common merge(int workers, Executor executor) {
+        List<WordCountTable_Common> tables = local.values();
+        local.release();
+        return StripedWordCountTable_Common.merge(tables, workers, executor);
+    }
+}
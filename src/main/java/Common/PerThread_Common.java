@@ -0,0 +1,62 @@
+package Common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * One value per worker thread, created on first use and listed for the final merge.
+ * The ThreadLocal only holds a slot; {@link #release()} empties every slot, because pool
+ * threads such as those of {@code ForkJoinPool.commonPool()} outlive the run and their
+ * ThreadLocal entries would otherwise keep each run's tables reachable into the next
+ * in-process trial.
+ */
+final class PerThread_Common<T> {
+
+    private final Supplier<T> factory;
+    private final List<Slot<T>> slots = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Slot<T>> local = ThreadLocal.withInitial(this::newSlot);
+
+    PerThread_Common(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    T get() {
+        return local.get().value;
+    }
+
+    /**
+     * The values of every thread that took part.
+     */
+    List<T> values() {
+        List<T> values = new ArrayList<>(slots.size());
+        for (Slot<T> slot : slots)
+            values.add(slot.value);
+        return values;
+    }
+
+    /**
+     * Drops every value. Call once the values are merged; {@link #get()} then returns null.
+     */
+    void release() {
+        for (Slot<T> slot : slots)
+            slot.value = null;
+        slots.clear();
+        local.remove();
+    }
+
+    private Slot<T> newSlot() {
+        Slot<T> slot = new Slot<>(factory.get());
+        slots.add(slot);
+        return slot;
+    }
+
+    private static final class Slot<T> {
+        T value;
+
+        Slot(T value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package Common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What one engine run produced: how much it processed, how long it took and the most
+ * frequent words. Approximate runs also carry bounded estimates instead of exact counts.
+ */
+public class RunResult_Common {
+
+    private final String engine;
+    private final int threads;
+    private final int processedPages;
+    private final long textChars;
+    private final long elapsedMillis;
+    private final List<Map.Entry<String, Long>> topWords;
+    private final List<ApproximateCounter_Common.Estimate> estimates;
+    private final String errorBounds;
+    private final StageTimer_Common stages;
+
+    public RunResult_Common(String engine, int threads, int processedPages, long textChars, long elapsedMillis,
+                            List<Map.Entry<String, Long>> topWords, StageTimer_Common stages) {
+        this(engine, threads, processedPages, textChars, elapsedMillis, topWords, null, null, stages);
+    }
+
+    public RunResult_Common(String engine, int threads, int processedPages, long textChars, long elapsedMillis,
+                            List<ApproximateCounter_Common.Estimate> estimates, String errorBounds, StageTimer_Common stages) {
+        this(engine, threads, processedPages, textChars, elapsedMillis, Collections.<Map.Entry<String, Long>>emptyList(),
+                estimates, errorBounds, stages);
+    }
+
+    private RunResult_Common(String engine, int threads, int processedPages, long textChars, long elapsedMillis,
+                             List<Map.Entry<String, Long>> topWords,
+                             List<ApproximateCounter_Common.Estimate> estimates, String errorBounds,
+                             StageTimer_Common stages) {
+        this.engine = engine;
+        this.threads = threads;
+        this.processedPages = processedPages;
+        this.textChars = textChars;
+        this.elapsedMillis = elapsedMillis;
+        this.topWords = topWords;
+        this.estimates = estimates == null ? new ArrayList<>() : estimates;
+        this.errorBounds = errorBounds;
+        this.stages = stages;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getProcessedPages() {
+        return processedPages;
+    }
+
+    /**
+     * Characters of page text that were tokenized.
+     */
+    public long getTextChars() {
+        return textChars;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public List<Map.Entry<String, Long>> getTopWords() {
+        return topWords;
+    }
+
+    public StageTimer_Common getStages() {
+        return stages;
+    }
+
+    public void print() {
+        System.out.println("Processed pages: " + processedPages);
+        System.out.println("Elapsed time: " + elapsedMillis + "ms");
+        for (Map.Entry<String, Long> x : topWords)
+            System.out.println("Word: \'" + x.getKey() + "\' with total " + x.getValue() + " occurrences!");
+        for (ApproximateCounter_Common.Estimate x : estimates)
+            System.out.println("Word: \'" + x.getWord() + "\' with total ~" + x.getCount() + " occurrences (at least " + x.getLowerBound() + ")!");
+        if (errorBounds != null)
+            System.out.println(errorBounds);
+        stages.printBreakdown();
+    }
+}
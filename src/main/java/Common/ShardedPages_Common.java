@@ -0,0 +1,253 @@
+package Common;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.events.XMLEvent;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Parses the dump with one StAX reader per byte-range shard. Shard boundaries are
+ * moved forward to the next {@code <page>} start tag, so every shard holds whole
+ * pages only. Pages from all shards are handed over through a {@link PageQueue_Common},
+ * in no particular order. Before sharding, the range to read is cut right before the
+ * {@code <page>} tag past the page limit, or after the last {@code </page>}, so the shards
+ * read exactly the first maxPages pages and no trailing {@code </mediawiki>}.
+ */
+public class ShardedPages_Common<P> implements Iterable<P> {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private static final byte[] PAGE_TAG = "<page>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PAGE_CLOSE = "</page>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SHARD_OPEN = "<shard>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SHARD_CLOSE = "</shard>".getBytes(StandardCharsets.US_ASCII);
+
+    private final int maxPages;
+    private final String fileName;
+    private final int shards;
+    private final int queueCapacity;
+    private final BiFunction<String, String, P> newPage;
+
+    public ShardedPages_Common(int maxPages, String fileName, int shards, BiFunction<String, String, P> newPage) {
+        this(maxPages, fileName, shards, DEFAULT_QUEUE_CAPACITY, newPage);
+    }
+
+    public ShardedPages_Common(int maxPages, String fileName, int shards, int queueCapacity,
+                               BiFunction<String, String, P> newPage) {
+        this.maxPages = maxPages;
+        this.fileName = fileName;
+        this.shards = shards;
+        this.queueCapacity = queueCapacity;
+        this.newPage = newPage;
+    }
+
+    public Iterator<P> iterator() {
+        try {
+            System.out.println("Max pages: " + maxPages + " (" + shards + " parser shards)");
+            FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+            long[] bounds = shardBounds(channel, shards, pagesEnd(channel, maxPages));
+            PageQueue_Common<P> pageQueue = new PageQueue_Common<>(queueCapacity, bounds.length - 1);
+            AtomicInteger openShards = new AtomicInteger(bounds.length - 1);
+            for (int i = 0; i < bounds.length - 1; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                Thread shard = new Thread(() -> {
+                    try {
+                        parseShard(channel, from, to, pageQueue);
+                    } catch (Throwable e) {
+                        pageQueue.fail(e);
+                    } finally {
+                        if (openShards.decrementAndGet() == 0)
+                            closeQuietly(channel);
+                        pageQueue.producerDone();
+                    }
+                }, "page-shard-" + i);
+                shard.setDaemon(true);
+                shard.start();
+            }
+            return pageQueue.iterator();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Returns shard start offsets followed by {@code end}. Each start is the offset of a
+     * {@code <page>} tag; shards that would be empty are dropped.
+     */
+    static long[] shardBounds(FileChannel channel, int shards, long end) throws IOException {
+        long[] bounds = new long[shards + 1];
+        int count = 0;
+        for (int i = 0; i < shards; i++) {
+            long start = indexOf(channel, PAGE_TAG, end * i / shards, end);
+            if (start < 0 || start >= end)
+                break;
+            if (count == 0 || start > bounds[count - 1])
+                bounds[count++] = start;
+        }
+        if (count == 0)
+            return new long[]{end, end};
+        bounds[count++] = end;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Offset of the {@code <page>} tag that follows the first maxPages pages, or just past
+     * the last {@code </page>} when the dump has no more pages than that. The tags are
+     * counted with the byte scanner of {@link PageScanner_Common}, which stops at the
+     * limit and is far cheaper than the StAX parse it bounds.
+     */
+    static long pagesEnd(FileChannel channel, int maxPages) throws IOException {
+        long size = channel.size();
+        int pages = 0;
+        for (long from = 0; from < size; ) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(MappedPages_Common.WINDOW_SIZE, size - from));
+            int at = 0;
+            while ((at = PageScanner_Common.indexOf(window, PAGE_TAG, at, window.limit())) >= 0) {
+                if (pages++ == maxPages)
+                    return from + at;
+                at += PAGE_TAG.length;
+            }
+            if (from + window.limit() >= size)
+                break;
+            // Overlap the windows so a tag across the boundary is found in the next one.
+            from += window.limit() - PAGE_TAG.length + 1;
+        }
+        long lastClose = lastIndexOf(channel, PAGE_CLOSE, 0, size);
+        return lastClose < 0 ? 0 : lastClose + PAGE_CLOSE.length;
+    }
+
+    static long indexOf(FileChannel channel, byte[] pattern, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = from;
+        while (position < to) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0)
+                break;
+            for (int i = 0; i + pattern.length <= read; i++) {
+                int j = 0;
+                while (j < pattern.length && buffer.get(i + j) == pattern[j])
+                    j++;
+                if (j == pattern.length)
+                    return position + i;
+            }
+            if (read < pattern.length)
+                break;
+            position += read - pattern.length + 1;
+        }
+        return -1;
+    }
+
+    static long lastIndexOf(FileChannel channel, byte[] pattern, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long limit = to;
+        while (limit - from >= pattern.length) {
+            long start = Math.max(from, limit - buffer.capacity());
+            buffer.clear();
+            buffer.limit((int) (limit - start));
+            int read = 0;
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, start + read);
+                if (n <= 0)
+                    return -1;
+                read += n;
+            }
+            for (int i = read - pattern.length; i >= 0; i--) {
+                int j = 0;
+                while (j < pattern.length && buffer.get(i + j) == pattern[j])
+                    j++;
+                if (j == pattern.length)
+                    return start + i;
+            }
+            if (start == from)
+                break;
+            limit = start + pattern.length - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Any parse error ends up in the page queue through the shard thread, so a malformed
+     * shard fails the run instead of silently contributing fewer pages.
+     */
+    private void parseShard(FileChannel channel, long from, long to, PageQueue_Common<P> pageQueue) throws Exception {
+        InputStream shardStream = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                new ByteArrayInputStream(SHARD_OPEN),
+                new BufferedInputStream(new RangeInputStream(channel, from, to), 64 * 1024),
+                new ByteArrayInputStream(SHARD_CLOSE))));
+        XMLEventReader reader = XMLInputFactory.newInstance().createXMLEventReader(shardStream, "UTF-8");
+        try {
+            String title = "";
+            String text = "";
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    String name = event.asStartElement().getName().getLocalPart();
+                    if (name.equals("page")) {
+                        title = "";
+                        text = "";
+                    } else if (name.equals("title"))
+                        title = reader.getElementText();
+                    else if (name.equals("text"))
+                        text = reader.getElementText();
+                } else if (event.isEndElement()) {
+                    if (event.asEndElement().getName().getLocalPart().equals("page"))
+                        pageQueue.put(newPage.apply(title, text));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long from, long to) {
+            this.channel = channel;
+            this.position = from;
+            this.end = to;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end)
+                return -1;
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n > 0)
+                position += n;
+            return n;
+        }
+    }
+}
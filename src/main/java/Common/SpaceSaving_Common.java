@@ -0,0 +1,243 @@
+package Common;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Space-Saving heavy hitters with a fixed number of counters. A word that is not
+ * monitored takes over the counter with the smallest count and inherits that count
+ * as its error, so every count is an overestimate by at most its error, and any word
+ * occurring more than N / capacity times is guaranteed to be monitored.
+ * Word characters are copied into per-counter buffers, so updates do not allocate.
+ */
+public class SpaceSaving_Common {
+
+    private final int capacity;
+    private final char[][] keys;
+    private final int[] keyLengths;
+    private final int[] hashes;
+    private final long[] counts;
+    private final long[] errors;
+    private final int[] heap;
+    private final int[] heapPositions;
+    private final int[] slots;
+    private final int mask;
+    private int size;
+    private long total;
+
+    public SpaceSaving_Common(int capacity) {
+        this.capacity = capacity;
+        keys = new char[capacity][];
+        keyLengths = new int[capacity];
+        hashes = new int[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        heapPositions = new int[capacity];
+        int slotCount = Integer.highestOneBit(Math.max(4, capacity * 2) - 1) << 1;
+        slots = new int[slotCount];
+        mask = slotCount - 1;
+    }
+
+    public void add(CharSequence text, int offset, int length, int hash, long delta) {
+        total += delta;
+        int counter = find(text, offset, length, hash);
+        if (counter >= 0) {
+            counts[counter] += delta;
+            siftDown(heapPositions[counter]);
+        } else if (size < capacity) {
+            counter = size;
+            setKey(counter, text, offset, length, hash);
+            counts[counter] = delta;
+            errors[counter] = 0;
+            heap[size] = counter;
+            heapPositions[counter] = size;
+            size++;
+            siftUp(size - 1);
+        } else {
+            counter = heap[0];
+            unindex(counter);
+            setKey(counter, text, offset, length, hash);
+            errors[counter] = counts[counter];
+            counts[counter] += delta;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Merges another summary into this one. A word missing from one summary may have
+     * occurred there up to that summary's minimum count, which is added to both its
+     * count and its error; the largest counts are then kept.
+     */
+    public void merge(SpaceSaving_Common other) {
+        long thisMin = minCount();
+        long otherMin = other.minCount();
+        List<String> words = new ArrayList<>(size + other.size);
+        List<long[]> values = new ArrayList<>(size + other.size);
+        for (int c = 0; c < size; c++) {
+            int match = other.find(CharBuffer.wrap(keys[c], 0, keyLengths[c]), 0, keyLengths[c], hashes[c]);
+            long count = counts[c] + (match >= 0 ? other.counts[match] : otherMin);
+            long error = errors[c] + (match >= 0 ? other.errors[match] : otherMin);
+            words.add(word(c));
+            values.add(new long[]{count, error});
+        }
+        for (int c = 0; c < other.size; c++) {
+            if (find(CharBuffer.wrap(other.keys[c], 0, other.keyLengths[c]), 0, other.keyLengths[c], other.hashes[c]) >= 0)
+                continue;
+            words.add(other.word(c));
+            values.add(new long[]{other.counts[c] + thisMin, other.errors[c] + thisMin});
+        }
+        Integer[] order = new Integer[words.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(values.get(b)[0], values.get(a)[0]));
+
+        long mergedTotal = total + other.total;
+        clear();
+        for (int i = 0; i < Math.min(capacity, order.length); i++) {
+            String word = words.get(order[i]);
+            long[] value = values.get(order[i]);
+            add(word, 0, word.length(), word.hashCode(), value[0]);
+            errors[find(word, 0, word.length(), word.hashCode())] = value[1];
+        }
+        total = mergedTotal;
+    }
+
+    /**
+     * Counter numbers of the k largest counts, largest first.
+     */
+    public int[] top(int k) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+        int[] top = new int[Math.min(k, size)];
+        for (int i = 0; i < top.length; i++)
+            top[i] = order[i];
+        return top;
+    }
+
+    public String word(int counter) {
+        return new String(keys[counter], 0, keyLengths[counter]);
+    }
+
+    public int hash(int counter) {
+        return hashes[counter];
+    }
+
+    public long count(int counter) {
+        return counts[counter];
+    }
+
+    public long error(int counter) {
+        return errors[counter];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long minCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    private void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+        total = 0;
+    }
+
+    private void setKey(int counter, CharSequence text, int offset, int length, int hash) {
+        char[] key = keys[counter];
+        if (key == null || key.length < length)
+            keys[counter] = key = new char[Math.max(16, length)];
+        for (int i = 0; i < length; i++)
+            key[i] = text.charAt(offset + i);
+        keyLengths[counter] = length;
+        hashes[counter] = hash;
+        int slot = spread(hash) & mask;
+        while (slots[slot] != 0)
+            slot = (slot + 1) & mask;
+        slots[slot] = counter + 1;
+    }
+
+    private int find(CharSequence text, int offset, int length, int hash) {
+        for (int slot = spread(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int counter = slots[slot] - 1;
+            if (hashes[counter] == hash && keyLengths[counter] == length && keyEquals(keys[counter], text, offset, length))
+                return counter;
+        }
+        return -1;
+    }
+
+    private static boolean keyEquals(char[] key, CharSequence text, int offset, int length) {
+        for (int i = 0; i < length; i++)
+            if (key[i] != text.charAt(offset + i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Removes a counter from the linear-probing index, shifting later entries of the
+     * same probe run back so lookups never need tombstones.
+     */
+    private void unindex(int counter) {
+        int slot = spread(hashes[counter]) & mask;
+        while (slots[slot] != counter + 1)
+            slot = (slot + 1) & mask;
+        int hole = slot;
+        for (slot = (hole + 1) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int home = spread(hashes[slots[slot] - 1]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = slots[slot];
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[heap[position]])
+                return;
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && counts[heap[left]] < counts[heap[smallest]])
+                smallest = left;
+            if (right < size && counts[heap[right]] < counts[heap[smallest]])
+                smallest = right;
+            if (smallest == position)
+                return;
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int counter = heap[a];
+        heap[a] = heap[b];
+        heap[b] = counter;
+        heapPositions[heap[a]] = a;
+        heapPositions[heap[b]] = b;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,37 @@
+package Common;
+
+/**
+ * Where each timed piece of work is recorded besides the run totals. {@link #NONE}
+ * records nothing. The {@code jfr} profile, active when building on JDK 11 or later,
+ * adds {@code JfrStageRecorder_Common}, which commits every piece as a Flight Recorder
+ * event; {@link #DEFAULT} finds it by name, so the main sources still build for Java 8.
+ */
+public interface StageRecorder_Common {
+
+    StageRecorder_Common NONE = new StageRecorder_Common() {
+    };
+
+    StageRecorder_Common DEFAULT = load();
+
+    /**
+     * Called when a piece of work starts; the result is handed back to {@link #end}.
+     */
+    default Object begin() {
+        return null;
+    }
+
+    default void end(Object started, String engine, Stage_Common stage, int pages, long chars, long tokens) {
+    }
+
+    /**
+     * The Flight Recorder recorder if it can be loaded, else {@link #NONE}.
+     */
+    static StageRecorder_Common load() {
+        try {
+            return (StageRecorder_Common) Class.forName("Common.JfrStageRecorder_Common").getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not built with the jfr profile, or a JVM without Flight Recorder.
+            return NONE;
+        }
+    }
+}
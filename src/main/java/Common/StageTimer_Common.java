@@ -0,0 +1,155 @@
+package Common;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Per-stage totals for one run, collected from every worker thread. Each timed piece
+ * of work is also handed to {@link StageRecorder_Common#DEFAULT}, so with the
+ * {@code jfr} profile a Flight Recorder recording shows the same pieces per task and chunk. Text is counted in chars and
+ * reported as bytes, one per char.
+ */
+public class StageTimer_Common {
+
+    private static final StageRecorder_Common RECORDER = StageRecorder_Common.DEFAULT;
+
+    private final String engine;
+    private final Totals[] totals = new Totals[Stage_Common.values().length];
+
+    public StageTimer_Common(String engine) {
+        this.engine = engine;
+        for (int i = 0; i < totals.length; i++)
+            totals[i] = new Totals();
+    }
+
+    public Span begin(Stage_Common stage) {
+        return new Span(stage);
+    }
+
+    /**
+     * Times the page source: every next() call is a PARSE span of one page.
+     */
+    public <P> Iterable<P> timePages(Iterable<P> pages, ToIntFunction<P> textLength) {
+        return () -> {
+            Iterator<P> iterator = pages.iterator();
+            return new Iterator<P>() {
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                public P next() {
+                    Span span = begin(Stage_Common.PARSE);
+                    P page = iterator.next();
+                    if (page == null)
+                        span.end(0, 0, 0);
+                    else
+                        span.end(1, textLength.applyAsInt(page), 0);
+                    return page;
+                }
+            };
+        };
+    }
+
+    /**
+     * The same for a spliterator and every spliterator split from it. The span ends
+     * before the page is handed on, so it does not include the caller's work.
+     */
+    public <P> Spliterator<P> timePages(Spliterator<P> pages, ToIntFunction<P> textLength) {
+        return new Spliterator<P>() {
+            private P page;
+
+            public boolean tryAdvance(Consumer<? super P> action) {
+                Span span = begin(Stage_Common.PARSE);
+                if (!pages.tryAdvance(next -> page = next)) {
+                    span.end(0, 0, 0);
+                    return false;
+                }
+                P next = page;
+                page = null;
+                span.end(1, textLength.applyAsInt(next), 0);
+                action.accept(next);
+                return true;
+            }
+
+            public Spliterator<P> trySplit() {
+                Spliterator<P> prefix = pages.trySplit();
+                return prefix == null ? null : timePages(prefix, textLength);
+            }
+
+            public long estimateSize() {
+                return pages.estimateSize();
+            }
+
+            public int characteristics() {
+                return pages.characteristics();
+            }
+        };
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public long getNanos(Stage_Common stage) {
+        return totals[stage.ordinal()].nanos.sum();
+    }
+
+    public long getMillis(Stage_Common stage) {
+        return getNanos(stage) / 1_000_000;
+    }
+
+    public void printBreakdown() {
+        long all = 0;
+        for (Stage_Common stage : Stage_Common.values())
+            all += getNanos(stage);
+        System.out.println(String.format(Locale.ROOT, "%-9s %9s %11s %7s %8s %10s %12s",
+                "Stage", "Calls", "Time (ms)", "Share", "Pages", "Text (MB)", "Tokens"));
+        for (Stage_Common stage : Stage_Common.values()) {
+            Totals t = totals[stage.ordinal()];
+            long nanos = t.nanos.sum();
+            System.out.println(String.format(Locale.ROOT, "%-9s %9d %11.1f %6.1f%% %8d %10.1f %12d",
+                    stage, t.calls.sum(), nanos / 1e6, all == 0 ? 0 : 100.0 * nanos / all,
+                    t.pages.sum(), t.chars.sum() / 1e6, t.tokens.sum()));
+        }
+        System.out.println("Stage times are summed over all threads, so they can exceed the elapsed time.");
+    }
+
+    public final class Span {
+        private final Stage_Common stage;
+        private final Object event;
+        private final long start;
+
+        private Span(Stage_Common stage) {
+            this.stage = stage;
+            this.event = RECORDER.begin();
+            this.start = System.nanoTime();
+        }
+
+        public void end() {
+            end(0, 0, 0);
+        }
+
+        public void end(int pages, long chars, long tokens) {
+            long nanos = System.nanoTime() - start;
+            Totals t = totals[stage.ordinal()];
+            t.calls.increment();
+            t.nanos.add(nanos);
+            t.pages.add(pages);
+            t.chars.add(chars);
+            t.tokens.add(tokens);
+            RECORDER.end(event, engine, stage, pages, chars, tokens);
+        }
+    }
+
+    private static final class Totals {
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder pages = new LongAdder();
+        final LongAdder chars = new LongAdder();
+        final LongAdder tokens = new LongAdder();
+    }
+}
@@ -0,0 +1,27 @@
+package Common;
+
+/**
+ * The phases of a word count run, as timed by {@link StageTimer_Common}.
+ */
+public enum Stage_Common {
+    /**
+     * Reading pages from the dump, measured as time spent waiting on the page source.
+     */
+    PARSE,
+    /**
+     * Splitting page text into words; see {@link PageCounter_Common}.
+     */
+    TOKENIZE,
+    /**
+     * Adding the words of a page to the counts, i.e. the map updates.
+     */
+    COUNT,
+    /**
+     * Combining per-task counts into the result.
+     */
+    MERGE,
+    /**
+     * Selecting the most frequent words.
+     */
+    REPORT
+}
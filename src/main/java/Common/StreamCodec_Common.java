@@ -0,0 +1,33 @@
+package Common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression format of the streams in a multistream dump. gzip is built in; other
+ * formats such as bzip2 are plugged in by class name, e.g. a wrapper around a bzip2
+ * library. Writing streams is {@link StreamEncoder_Common}'s job.
+ */
+public interface StreamCodec_Common {
+
+    /**
+     * Decompresses one complete stream.
+     */
+    InputStream decompress(InputStream compressed) throws IOException;
+
+    StreamCodec_Common GZIP = compressed -> new GZIPInputStream(compressed, 64 * 1024);
+
+    /**
+     * "gzip", or the name of a class implementing this interface with a public no-arg constructor.
+     */
+    static StreamCodec_Common forName(String name) {
+        if (name.equalsIgnoreCase("gzip"))
+            return GZIP;
+        try {
+            return (StreamCodec_Common) Class.forName(name).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Unknown codec " + name, e);
+        }
+    }
+}
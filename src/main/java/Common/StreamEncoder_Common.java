@@ -0,0 +1,32 @@
+package Common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writer side of a stream format, used by {@link MultistreamWriter_Common} to build
+ * test dumps. Readers only need {@link StreamCodec_Common}.
+ */
+public interface StreamEncoder_Common {
+
+    /**
+     * Wraps {@code out}; closing the returned stream ends one complete compressed stream.
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    StreamEncoder_Common GZIP = out -> new GZIPOutputStream(out, 64 * 1024);
+
+    /**
+     * "gzip", or the name of a class implementing this interface with a public no-arg constructor.
+     */
+    static StreamEncoder_Common forName(String name) {
+        if (name.equalsIgnoreCase("gzip"))
+            return GZIP;
+        try {
+            return (StreamEncoder_Common) Class.forName(name).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Unknown encoder " + name, e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package Common;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Word counts shared by all worker threads. Words are spread by hash over independent
+ * {@link WordCountTable_Common} stripes, each with its own lock, so there is no global
+ * lock and threads only contend when they update the same stripe at the same time.
+ * Because a word's stripe only depends on its hash, {@link #merge} can also build one
+ * from per-thread tables with every stripe merged by a different worker.
+ */
+public class StripedWordCountTable_Common implements WordCounter_Common {
+
+    private final WordCountTable_Common[] stripes;
+    private final ReentrantLock[] locks;
+    private final int shift;
+
+    public StripedWordCountTable_Common() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedWordCountTable_Common(int concurrency) {
+        int count = Integer.highestOneBit(Math.max(2, concurrency) - 1) << 1;
+        stripes = new WordCountTable_Common[count];
+        locks = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new WordCountTable_Common();
+            locks[i] = new ReentrantLock();
+        }
+        shift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * Sums the partial tables into a new striped table on {@code workers} tasks of the
+     * executor. First every partial table's entries are bucketed by stripe, then each
+     * stripe is built by one worker from its bucket of every partial table, so workers
+     * never share a table and no word is hashed into one global table. The partial tables
+     * must no longer change.
+     */
+    public static StripedWordCountTable_Common merge(List<WordCountTable_Common> partials, int workers, Executor executor) {
+        StripedWordCountTable_Common merged = new StripedWordCountTable_Common(4 * workers);
+        int stripeCount = merged.stripes.length;
+        int[][] buckets = new int[partials.size()][];
+        int[][] bucketStarts = new int[partials.size()][];
+        runAll(partials.size(), workers, executor, p -> {
+            WordCountTable_Common partial = partials.get(p);
+            int[] starts = new int[stripeCount + 1];
+            int[] stripeOfEntry = new int[partial.size()];
+            for (int entry = 0; entry < partial.size(); entry++) {
+                stripeOfEntry[entry] = merged.stripeOf(partial.hash(entry));
+                starts[stripeOfEntry[entry] + 1]++;
+            }
+            for (int stripe = 0; stripe < stripeCount; stripe++)
+                starts[stripe + 1] += starts[stripe];
+            int[] bucket = new int[partial.size()];
+            int[] next = starts.clone();
+            for (int entry = 0; entry < partial.size(); entry++)
+                bucket[next[stripeOfEntry[entry]]++] = entry;
+            buckets[p] = bucket;
+            bucketStarts[p] = starts;
+        });
+        runAll(stripeCount, workers, executor, stripe -> {
+            // Every word of the largest bucket is distinct, so it is a lower bound on the stripe's size.
+            int largest = 0;
+            for (int[] starts : bucketStarts)
+                largest = Math.max(largest, starts[stripe + 1] - starts[stripe]);
+            WordCountTable_Common table = new WordCountTable_Common(2 * largest);
+            for (int p = 0; p < buckets.length; p++)
+                table.addAll(partials.get(p), buckets[p], bucketStarts[p][stripe], bucketStarts[p][stripe + 1]);
+            merged.stripes[stripe] = table;
+        });
+        return merged;
+    }
+
+    /**
+     * Runs {@code task} for 0 .. tasks - 1 on up to {@code workers} executor tasks that
+     * take the next index until none is left, and waits for all of them.
+     */
+    private static void runAll(int tasks, int workers, Executor executor, IntConsumer task) {
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] running = new CompletableFuture<?>[Math.max(1, Math.min(workers, tasks))];
+        for (int i = 0; i < running.length; i++)
+            running[i] = CompletableFuture.runAsync(() -> {
+                for (int index; (index = next.getAndIncrement()) < tasks; )
+                    task.accept(index);
+            }, executor);
+        CompletableFuture.allOf(running).join();
+    }
+
+    public void add(CharSequence text, int offset, int length) {
+        add(text, offset, length, WordSlice_Common.hash(text, offset, length), 1);
+    }
+
+    public void add(CharSequence text, int offset, int length, int hash, long delta) {
+        int stripe = stripeOf(hash);
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            stripes[stripe].add(text, offset, length, hash, delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long get(CharSequence text, int offset, int length) {
+        int stripe = stripeOf(WordSlice_Common.hash(text, offset, length));
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            return stripes[stripe].get(text, offset, length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long get(String word) {
+        return get(word, 0, word.length());
+    }
+
+    public int stripeOf(int hash) {
+        return (hash * 0x85EBCA6B) >>> shift;
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Direct access to one stripe, for callers that already own it exclusively.
+     */
+    public WordCountTable_Common stripe(int index) {
+        return stripes[index];
+    }
+
+    public int size() {
+        int size = 0;
+        for (WordCountTable_Common stripe : stripes)
+            size += stripe.size();
+        return size;
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> map = new HashMap<>(size() * 2);
+        for (WordCountTable_Common stripe : stripes)
+            map.putAll(stripe.toMap());
+        return map;
+    }
+}
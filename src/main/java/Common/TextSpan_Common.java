@@ -0,0 +1,37 @@
+package Common;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Page text that has not been decoded yet: a byte range of a mapped dump window.
+ * A page list of spans costs a few bytes per page instead of the decoded UTF-16 text,
+ * and {@link #decode()} runs in whichever thread tokenizes the page.
+ */
+public final class TextSpan_Common {
+
+    private static final ThreadLocal<PageScanner_Common> scanners = ThreadLocal.withInitial(PageScanner_Common::new);
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+
+    public TextSpan_Common(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Length in encoded bytes, before entities are resolved.
+     */
+    public int length() {
+        return end - start;
+    }
+
+    /**
+     * Decodes the text. Nothing is cached, so call this once per page.
+     */
+    public String decode() {
+        return scanners.get().decode(buffer, start, end);
+    }
+}
@@ -0,0 +1,98 @@
+package Common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that {@link TokenizerMode_Common#ASCII} yields exactly the tokens of the
+ * BreakIterator, with and without markup skipping, on three corpora: edge cases of the
+ * JDK word rules, random strings over ASCII mixed with characters that interact with
+ * them, and the pages of a dump. Exits with status 1 on any difference.
+ * Usage: {@code TokenizerConformance_Common [dump.xml] [pages]}.
+ */
+public class TokenizerConformance_Common {
+
+    private static final String[] EDGE_CASES = {
+            "can't won't e-mail snake_case a.b a..b a-b-c -a a- _a a_",
+            "x86_64 x86 1a 12ab34 3.14 1,000,000.5 1,a 1. .5 a.5 $5 $a $.5 #1 5% 5%% a1% 1& 100$",
+            "3'2\" O'Brien \"quoted\" 'single' a\"b 1\"2 a'1 1'a",
+            "  \t  \n\n \r\n\r\r \f a \u000b b \u001f c \u007f d",
+            "caf\u00e9 na\u0308ive co\u00adoperate a\u00a0b 5\u00a2 \u00a25 50\u2030 \u0661\u0662 x\u2019s",
+            "\u4e2d\u6587 \u3072\u3089\u304c\u306a \u30ab\u30bf\u30ab\u30ca \u0e20\u0e32\u0e29\u0e32 \u0939\u093f\u0928\u094d\u0926\u0940\u0964",
+            "\ud83d\ude00 a\ud83d\ude00b \u200bzero\u200bwidth \u2028line ( \u0301 a\u0301 1\u0301 ' \u0301",
+            "{{cite web|url=http://example.com/a_b?c=1&d=2|title=It's}} [[Link|label]] <ref>x</ref> &nbsp; __TOC__",
+    };
+    private static final String RANDOM_ALPHABET = "aeixyzAXZ0159 \t\n\r\f.,'\"-_$#%&()[]{}<>=|/:;!?*+@`^~\\"
+            + "\u00e9\u0301\u00a0\u00ad\u00a2\u0664\u4e2d\u3042\u30a2\u200b\u0e01\u0964\u00bd\u2019\u066b\u2030\u0085\u3000\ud83d\ude00";
+
+    public static void main(String[] args) {
+        Checker checker = new Checker();
+        for (String text : EDGE_CASES)
+            checker.check(text);
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            text.setLength(0);
+            for (int length = 1 + random.nextInt(24); length > 0; length--)
+                text.append(RANDOM_ALPHABET.charAt(random.nextInt(RANDOM_ALPHABET.length())));
+            checker.check(text);
+        }
+        System.out.println("Edge cases and random strings: " + checker.texts + " texts, " + checker.mismatches + " mismatches");
+        if (args.length > 0) {
+            int maxPages = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+            long texts = checker.texts;
+            for (String page : new MappedPages_Common<>(maxPages, args[0], (title, pageText) -> pageText))
+                checker.check(page);
+            System.out.println(args[0] + ": " + (checker.texts - texts) + " pages, " + checker.tokens + " tokens compared");
+        }
+        System.out.println(checker.mismatches == 0 ? "ASCII tokenizer conforms" : checker.mismatches + " mismatches");
+        if (checker.mismatches > 0)
+            System.exit(1);
+    }
+
+    private static final class Checker {
+        private final WordTokenizer_Common[] baseline = {
+                new WordTokenizer_Common(false, TokenizerMode_Common.BREAK_ITERATOR),
+                new WordTokenizer_Common(true, TokenizerMode_Common.BREAK_ITERATOR)};
+        private final WordTokenizer_Common[] ascii = {
+                new WordTokenizer_Common(false, TokenizerMode_Common.ASCII),
+                new WordTokenizer_Common(true, TokenizerMode_Common.ASCII)};
+        private final List<String> expected = new ArrayList<>();
+        private final List<String> actual = new ArrayList<>();
+        long texts;
+        long tokens;
+        long mismatches;
+
+        void check(CharSequence text) {
+            texts++;
+            for (int i = 0; i < baseline.length; i++) {
+                tokens(baseline[i].reset(text), expected);
+                tokens(ascii[i].reset(text), actual);
+                tokens += expected.size();
+                if (!expected.equals(actual) && ++mismatches <= 10)
+                    System.out.println("Mismatch" + (i == 1 ? " with skipMarkup" : "") + " in " + escape(text)
+                            + "\n  BreakIterator: " + expected + "\n  ASCII:         " + actual);
+            }
+        }
+
+        private static void tokens(WordTokenizer_Common words, List<String> out) {
+            out.clear();
+            while (words.next())
+                out.add(words.start() + ":" + escape(words.word()));
+        }
+    }
+
+    private static String escape(CharSequence text) {
+        StringBuilder escaped = new StringBuilder();
+        int end = Math.min(text.length(), 200);
+        for (int i = 0; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c < 0x7f)
+                escaped.append(c);
+            else
+                escaped.append(String.format("\\u%04x", (int) c));
+        }
+        return end < text.length() ? escaped + "..." : escaped.toString();
+    }
+}
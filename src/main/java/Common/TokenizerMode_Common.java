@@ -0,0 +1,13 @@
+package Common;
+
+public enum TokenizerMode_Common {
+    /**
+     * Every character goes through {@link java.text.BreakIterator}.
+     */
+    BREAK_ITERATOR,
+    /**
+     * ASCII text is split with {@link AsciiWordBoundary_Common}; only tokens next to a
+     * non-ASCII character are handed to the BreakIterator. Gives the same tokens.
+     */
+    ASCII
+}
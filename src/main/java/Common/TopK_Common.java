@@ -0,0 +1,122 @@
+package Common;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The k most frequent words of a count table, selected with a bounded min-heap in
+ * O(V log k). The heap holds entry numbers only; the k winning words are the only
+ * Strings created.
+ */
+public class TopK_Common {
+
+    private final int k;
+    private final long[] heapCounts;
+    private final int[] heapEntries;
+    private final int[] heapTables;
+    private final List<WordCountTable_Common> tables = new ArrayList<>();
+    private int size;
+
+    public TopK_Common(int k) {
+        this.k = k;
+        this.heapCounts = new long[k];
+        this.heapEntries = new int[k];
+        this.heapTables = new int[k];
+    }
+
+    public static List<Map.Entry<String, Long>> of(WordCountTable_Common counts, int k) {
+        return new TopK_Common(k).add(counts).result();
+    }
+
+    public static List<Map.Entry<String, Long>> of(StripedWordCountTable_Common counts, int k) {
+        TopK_Common top = new TopK_Common(k);
+        for (int i = 0; i < counts.stripeCount(); i++)
+            top.add(counts.stripe(i));
+        return top.result();
+    }
+
+    public TopK_Common add(WordCountTable_Common counts) {
+        if (k == 0)
+            return this;
+        int table = tables.size();
+        tables.add(counts);
+        for (int entry = 0; entry < counts.size(); entry++) {
+            long count = counts.count(entry);
+            if (size < k) {
+                heapCounts[size] = count;
+                heapEntries[size] = entry;
+                heapTables[size] = table;
+                siftUp(size++);
+            } else if (count > heapCounts[0]) {
+                heapCounts[0] = count;
+                heapEntries[0] = entry;
+                heapTables[0] = table;
+                siftDown(0);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Selected words, most frequent first. Empties the heap.
+     */
+    public List<Map.Entry<String, Long>> result() {
+        List<Map.Entry<String, Long>> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            result.add(null);
+        int remaining = size;
+        while (remaining > 0) {
+            result.set(remaining - 1, new AbstractMap.SimpleImmutableEntry<>(
+                    tables.get(heapTables[0]).word(heapEntries[0]), heapCounts[0]));
+            remaining--;
+            swap(0, remaining);
+            siftDown(0, remaining);
+        }
+        size = 0;
+        return result;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapCounts[parent] <= heapCounts[i])
+                return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        siftDown(i, size);
+    }
+
+    private void siftDown(int i, int limit) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < limit && heapCounts[left] < heapCounts[smallest])
+                smallest = left;
+            if (right < limit && heapCounts[right] < heapCounts[smallest])
+                smallest = right;
+            if (smallest == i)
+                return;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long count = heapCounts[a];
+        heapCounts[a] = heapCounts[b];
+        heapCounts[b] = count;
+        int entry = heapEntries[a];
+        heapEntries[a] = heapEntries[b];
+        heapEntries[b] = entry;
+        int table = heapTables[a];
+        heapTables[a] = heapTables[b];
+        heapTables[b] = table;
+    }
+}
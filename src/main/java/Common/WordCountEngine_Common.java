@@ -0,0 +1,9 @@
+package Common;
+
+/**
+ * One word counting strategy, as run by its WordCount main class or by the benchmark runner.
+ */
+public interface WordCountEngine_Common {
+
+    RunResult_Common run(Options_Common options) throws Exception;
+}
@@ -0,0 +1,302 @@
+package Common;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Open-addressing word → count table. Word characters are packed into one char arena,
+ * counts live in a long[] and the slot array only holds entry numbers, so an update
+ * allocates nothing and a lookup touches a few arrays instead of a chain of nodes.
+ * Entries are numbered densely from 0 to {@link #size()} - 1 in insertion order.
+ * Not thread-safe.
+ */
+public class WordCountTable_Common implements WordCounter_Common {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] slots;
+    private int mask;
+
+    private char[] arena;
+    private int[] offsets;
+    private int[] hashes;
+    private long[] counts;
+    private int size;
+
+    public WordCountTable_Common() {
+        this(1024);
+    }
+
+    public WordCountTable_Common(int expectedWords) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedWords / LOAD_FACTOR)) - 1) << 1;
+        slots = new int[capacity];
+        mask = capacity - 1;
+        int entries = Math.max(16, expectedWords);
+        offsets = new int[entries + 1];
+        hashes = new int[entries];
+        counts = new long[entries];
+        arena = new char[entries * 8];
+    }
+
+    public void add(CharSequence text, int offset, int length) {
+        add(text, offset, length, WordSlice_Common.hash(text, offset, length), 1);
+    }
+
+    public void add(CharSequence text, int offset, int length, long delta) {
+        add(text, offset, length, WordSlice_Common.hash(text, offset, length), delta);
+    }
+
+    public void add(String word, long delta) {
+        add(word, 0, word.length(), word.hashCode(), delta);
+    }
+
+    /**
+     * Adds {@code delta} to the word; {@code hash} must be the String hash code of the word.
+     */
+    public void add(CharSequence text, int offset, int length, int hash, long delta) {
+        int slot = spread(hash) & mask;
+        while (true) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                insert(slot, text, offset, length, hash, delta);
+                return;
+            }
+            if (hashes[entry] == hash && keyEquals(entry, text, offset, length)) {
+                counts[entry] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public long get(CharSequence text, int offset, int length) {
+        int entry = find(text, offset, length, WordSlice_Common.hash(text, offset, length));
+        return entry < 0 ? 0 : counts[entry];
+    }
+
+    public long get(String word) {
+        return get(word, 0, word.length());
+    }
+
+    /**
+     * Adds every count of {@code other} to this table, reusing the stored hashes.
+     */
+    public void addAll(WordCountTable_Common other) {
+        ArenaSequence key = new ArenaSequence(other.arena);
+        for (int entry = 0; entry < other.size; entry++) {
+            int offset = other.offsets[entry];
+            add(key, offset, other.offsets[entry + 1] - offset, other.hashes[entry], other.counts[entry]);
+        }
+    }
+
+    /**
+     * Adds the counts of {@code other}'s entries listed in {@code entries[from, to)}.
+     */
+    public void addAll(WordCountTable_Common other, int[] entries, int from, int to) {
+        ArenaSequence key = new ArenaSequence(other.arena);
+        for (int i = from; i < to; i++) {
+            int entry = entries[i];
+            int offset = other.offsets[entry];
+            add(key, offset, other.offsets[entry + 1] - offset, other.hashes[entry], other.counts[entry]);
+        }
+    }
+
+    /**
+     * An independent copy, so a snapshot can be written while this table keeps counting.
+     */
+    public WordCountTable_Common copy() {
+        WordCountTable_Common copy = new WordCountTable_Common(0);
+        copy.slots = slots.clone();
+        copy.mask = mask;
+        int entries = Math.max(16, size);
+        copy.arena = Arrays.copyOf(arena, Math.max(16, offsets[size]));
+        copy.offsets = Arrays.copyOf(offsets, entries + 1);
+        copy.hashes = Arrays.copyOf(hashes, entries);
+        copy.counts = Arrays.copyOf(counts, entries);
+        copy.size = size;
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long count(int entry) {
+        return counts[entry];
+    }
+
+    public int hash(int entry) {
+        return hashes[entry];
+    }
+
+    public String word(int entry) {
+        return new String(arena, offsets[entry], offsets[entry + 1] - offsets[entry]);
+    }
+
+    public int wordLength(int entry) {
+        return offsets[entry + 1] - offsets[entry];
+    }
+
+    /**
+     * Copies the characters of an entry's word into {@code dst} without creating a String.
+     */
+    public void getChars(int entry, char[] dst, int dstBegin) {
+        System.arraycopy(arena, offsets[entry], dst, dstBegin, offsets[entry + 1] - offsets[entry]);
+    }
+
+    /**
+     * Entry numbers ordered by word in code point order, which is also the byte order
+     * of the words' UTF-8 encodings.
+     */
+    public int[] sortedEntries() {
+        int[] entries = new int[size];
+        for (int entry = 0; entry < size; entry++)
+            entries[entry] = entry;
+        int[] buffer = new int[size];
+        sort(entries, buffer, 0, size);
+        return entries;
+    }
+
+    private void sort(int[] entries, int[] buffer, int from, int to) {
+        if (to - from < 16) {
+            for (int i = from + 1; i < to; i++) {
+                int entry = entries[i];
+                int j = i;
+                for (; j > from && compareWords(entries[j - 1], entry) > 0; j--)
+                    entries[j] = entries[j - 1];
+                entries[j] = entry;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sort(entries, buffer, from, mid);
+        sort(entries, buffer, mid, to);
+        if (compareWords(entries[mid - 1], entries[mid]) <= 0)
+            return;
+        System.arraycopy(entries, from, buffer, from, to - from);
+        for (int i = from, left = from, right = mid; i < to; i++)
+            entries[i] = right >= to || (left < mid && compareWords(buffer[left], buffer[right]) <= 0)
+                    ? buffer[left++] : buffer[right++];
+    }
+
+    private int compareWords(int a, int b) {
+        return compareCodePoints(arena, offsets[a], offsets[a + 1] - offsets[a], arena, offsets[b], offsets[b + 1] - offsets[b]);
+    }
+
+    /**
+     * Compares two UTF-16 strings in code point order, where an unpaired surrogate counts
+     * as the code point of its own value. That is the byte order of their WTF-8 encoding,
+     * as written by {@link FrequencyIndex_Common}.
+     */
+    static int compareCodePoints(char[] a, int aStart, int aLength, char[] b, int bStart, int bLength) {
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            char x = a[aStart + i];
+            char y = b[bStart + i];
+            if (x == y)
+                continue;
+            // After a shared high surrogate, a low surrogate completes a pair, which is
+            // greater than the unpaired high surrogate on the other side.
+            if (i > 0 && Character.isHighSurrogate(a[aStart + i - 1])
+                    && Character.isLowSurrogate(x) != Character.isLowSurrogate(y))
+                return Character.isLowSurrogate(x) ? 1 : -1;
+            return codePointAt(a, aStart + i, aStart + aLength) - codePointAt(b, bStart + i, bStart + bLength);
+        }
+        return aLength - bLength;
+    }
+
+    private static int codePointAt(char[] chars, int index, int limit) {
+        char c = chars[index];
+        if (Character.isHighSurrogate(c) && index + 1 < limit && Character.isLowSurrogate(chars[index + 1]))
+            return Character.toCodePoint(c, chars[index + 1]);
+        return c;
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> map = new HashMap<>(size * 2);
+        for (int entry = 0; entry < size; entry++)
+            map.put(word(entry), counts[entry]);
+        return map;
+    }
+
+    private int find(CharSequence text, int offset, int length, int hash) {
+        int slot = spread(hash) & mask;
+        while (true) {
+            int entry = slots[slot] - 1;
+            if (entry < 0)
+                return -1;
+            if (hashes[entry] == hash && keyEquals(entry, text, offset, length))
+                return entry;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(int entry, CharSequence text, int offset, int length) {
+        int start = offsets[entry];
+        if (offsets[entry + 1] - start != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (arena[start + i] != text.charAt(offset + i))
+                return false;
+        return true;
+    }
+
+    private void insert(int slot, CharSequence text, int offset, int length, int hash, long delta) {
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2 + 1);
+        }
+        int start = offsets[size];
+        if (start + length > arena.length)
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, start + length));
+        for (int i = 0; i < length; i++)
+            arena[start + i] = text.charAt(offset + i);
+        offsets[size + 1] = start + length;
+        hashes[size] = hash;
+        counts[size] = delta;
+        slots[slot] = ++size;
+        if (size > slots.length * LOAD_FACTOR)
+            rehash();
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        mask = slots.length - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = spread(hashes[entry]) & mask;
+            while (slots[slot] != 0)
+                slot = (slot + 1) & mask;
+            slots[slot] = entry + 1;
+        }
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * CharSequence view over another table's arena, used when merging tables.
+     */
+    private static final class ArenaSequence implements CharSequence {
+        private final char[] chars;
+
+        ArenaSequence(char[] chars) {
+            this.chars = chars;
+        }
+
+        public int length() {
+            return chars.length;
+        }
+
+        public char charAt(int index) {
+            return chars[index];
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package Common;
+
+/**
+ * Anything a tokenizer loop can count words into.
+ */
+public interface WordCounter_Common {
+
+    void add(CharSequence text, int offset, int length);
+}
@@ -0,0 +1,63 @@
+package Common;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Assigns every distinct word a dense int id, shared by all threads. Lookups go
+ * through a {@link WordSlice_Common} flyweight, so a word that is already known costs
+ * one ConcurrentHashMap read and no allocation. A new word takes the next id and is
+ * published with putIfAbsent; when two threads race on the same word, one id goes
+ * unused and is never counted. Words are kept by id in fixed-size chunks, so growing
+ * the dictionary never copies it.
+ */
+public class WordDictionary_Common {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final ConcurrentHashMap<String, Integer> ids;
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicReferenceArray<String[]> chunks = new AtomicReferenceArray<>(1 << 17);
+
+    public WordDictionary_Common() {
+        this(1 << 16);
+    }
+
+    public WordDictionary_Common(int expectedWords) {
+        ids = new ConcurrentHashMap<>(expectedWords);
+    }
+
+    public int id(WordSlice_Common word) {
+        Integer id = ids.get(word);
+        if (id != null)
+            return id;
+        String key = word.toString();
+        int candidate = nextId.getAndIncrement();
+        chunk(candidate)[candidate & (CHUNK_SIZE - 1)] = key;
+        id = ids.putIfAbsent(key, candidate);
+        return id == null ? candidate : id;
+    }
+
+    public String word(int id) {
+        return chunks.get(id >>> CHUNK_BITS)[id & (CHUNK_SIZE - 1)];
+    }
+
+    /**
+     * One more than the largest id handed out so far.
+     */
+    public int size() {
+        return nextId.get();
+    }
+
+    private String[] chunk(int id) {
+        int index = id >>> CHUNK_BITS;
+        String[] chunk = chunks.get(index);
+        if (chunk == null) {
+            chunks.compareAndSet(index, null, new String[CHUNK_SIZE]);
+            chunk = chunks.get(index);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,65 @@
+package Common;
+
+/**
+ * Mutable view of a word inside a larger text. {@link #hashCode()} and
+ * {@link #equals(Object)} agree with String, so a slice can be used to look up
+ * String keys (e.g. {@code HashMap<String, Integer>.get(slice)}) without creating
+ * a String for the word.
+ */
+public final class WordSlice_Common implements CharSequence {
+
+    private CharSequence text;
+    private int offset;
+    private int length;
+
+    public WordSlice_Common set(CharSequence text, int offset, int length) {
+        this.text = text;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    public static int hash(CharSequence text, int offset, int length) {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++)
+            h = 31 * h + text.charAt(i);
+        return h;
+    }
+
+    public static boolean contentEquals(CharSequence a, int aOffset, CharSequence b, int bOffset, int length) {
+        for (int i = 0; i < length; i++)
+            if (a.charAt(aOffset + i) != b.charAt(bOffset + i))
+                return false;
+        return true;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(int index) {
+        return text.charAt(offset + index);
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(offset + start, offset + end);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(text, offset, length);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof CharSequence))
+            return false;
+        CharSequence word = (CharSequence) other;
+        return word.length() == length && contentEquals(text, offset, word, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return text.subSequence(offset, offset + length).toString();
+    }
+}
@@ -0,0 +1,147 @@
+package Common;
+
+import java.text.BreakIterator;
+
+/**
+ * Cursor over the words of a text, using the same {@link BreakIterator} boundaries as
+ * the Words_* classes. Words are reported as (start, length) in the source text and
+ * tokens rejected by the word filter never become objects. With markup skipping, only
+ * the prose spans found by {@link MarkupSkipper_Common} are tokenized, and tokens that
+ * do not start with a letter or digit (whitespace runs, "==", "''") are dropped too.
+ * In {@link TokenizerMode_Common#ASCII} mode, boundaries in ASCII text come from
+ * {@link AsciiWordBoundary_Common} and the BreakIterator only sees tokens that touch
+ * other characters. One instance per thread.
+ */
+public class WordTokenizer_Common {
+
+    private final BreakIterator wordBoundary = BreakIterator.getWordInstance();
+    private final CharSequenceIterator_Common characters = new CharSequenceIterator_Common();
+    private final WordSlice_Common slice = new WordSlice_Common();
+    private final MarkupSkipper_Common markup;
+    private final boolean ascii;
+    private CharSequence text;
+    private int start;
+    private int end;
+    private int limit;
+    // Position of the BreakIterator in ASCII mode, -1 when it has to be restarted.
+    private int boundaryPosition;
+
+    public WordTokenizer_Common() {
+        this(false);
+    }
+
+    public WordTokenizer_Common(boolean skipMarkup) {
+        this(skipMarkup, TokenizerMode_Common.BREAK_ITERATOR);
+    }
+
+    public WordTokenizer_Common(boolean skipMarkup, TokenizerMode_Common mode) {
+        this.markup = skipMarkup ? new MarkupSkipper_Common() : null;
+        this.ascii = mode == TokenizerMode_Common.ASCII;
+    }
+
+    public WordTokenizer_Common reset(CharSequence text) {
+        return reset(text, 0, text.length());
+    }
+
+    public WordTokenizer_Common reset(CharSequence text, int from, int to) {
+        this.text = text;
+        if (markup != null) {
+            markup.reset(text, from, to);
+            to = from;
+        }
+        setRange(from, to);
+        return this;
+    }
+
+    private void setRange(int from, int to) {
+        limit = to;
+        if (ascii) {
+            end = from;
+            boundaryPosition = -1;
+            return;
+        }
+        characters.reset(text, from, to);
+        wordBoundary.setText(characters);
+        end = wordBoundary.first();
+    }
+
+    private int nextBoundary() {
+        if (!ascii)
+            return wordBoundary.next();
+        if (start >= limit)
+            return BreakIterator.DONE;
+        int boundary = AsciiWordBoundary_Common.wordEnd(text, start, limit);
+        if (boundary >= 0)
+            return boundary;
+        // The BreakIterator only continues by itself from the boundary it returned last.
+        if (boundaryPosition != start) {
+            characters.reset(text, start, limit);
+            wordBoundary.setText(characters);
+        }
+        return boundaryPosition = wordBoundary.next();
+    }
+
+    /**
+     * Moves to the next token that passes the word filter; false at the end of the text.
+     */
+    public boolean next() {
+        while (true) {
+            start = end;
+            end = nextBoundary();
+            if (end == BreakIterator.DONE) {
+                end = start;
+                if (markup == null || !markup.next())
+                    return false;
+                setRange(markup.start(), markup.end());
+                continue;
+            }
+            if (isWord(text, start, end) && (markup == null || Character.isLetterOrDigit(text.charAt(start))))
+                return true;
+        }
+    }
+
+    public static boolean isWord(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length > 1)
+            return true;
+        if (length == 1) {
+            char c = text.charAt(start);
+            return c == 'a' || c == 'I';
+        }
+        return false;
+    }
+
+    public CharSequence text() {
+        return text;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    public int length() {
+        return end - start;
+    }
+
+    /**
+     * Same value as {@code word().hashCode()}, computed without creating the String.
+     */
+    public int hash() {
+        return WordSlice_Common.hash(text, start, end - start);
+    }
+
+    /**
+     * The current word as a reusable view; valid until the next call to {@link #next()}.
+     */
+    public WordSlice_Common slice() {
+        return slice.set(text, start, end - start);
+    }
+
+    public String word() {
+        return text.subSequence(start, end).toString();
+    }
+}
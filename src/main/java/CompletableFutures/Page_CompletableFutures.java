@@ -1,19 +1,38 @@
 package CompletableFutures;
 
+import Common.TextSpan_Common;
+
 class Page_CompletableFutures {
     private String title;
     private String text;
+    private TextSpan_Common textSpan;
 
     public Page_CompletableFutures(String title, String text) {
         this.title = title;
         this.text = text;
     }
 
+    public Page_CompletableFutures(String title, TextSpan_Common textSpan) {
+        this.title = title;
+        this.textSpan = textSpan;
+    }
+
     public String getTitle() {
         return title;
     }
 
+    /**
+     * For a lazy page this decodes the text on every call.
+     */
     public String getText() {
-        return text;
+        return text != null ? text : textSpan.decode();
+    }
+
+    /**
+     * Text length in chars, or 0 for a lazy page: its char count is only known once
+     * the worker that counts it has decoded the text.
+     */
+    public int getTextLength() {
+        return text != null ? text.length() : 0;
     }
 }
@@ -1,26 +1,95 @@
 package CompletableFutures;
 
+import Common.CountingMode_Common;
+import Common.DictionaryCounts_Common;
+import Common.FrequencyIndex_Common;
+import Common.MappedPages_Common;
+import Common.MultistreamPages_Common;
+import Common.Options_Common;
+import Common.PageCounter_Common;
+import Common.PartitionedCounts_Common;
+import Common.RunResult_Common;
+import Common.ShardedPages_Common;
+import Common.StageTimer_Common;
+import Common.Stage_Common;
+import Common.StreamCodec_Common;
+import Common.StripedWordCountTable_Common;
+import Common.TokenizerMode_Common;
+import Common.TopK_Common;
+import Common.WordCountTable_Common;
+import Common.WordCounter_Common;
+
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 public class WordCount_CompletableFutures {
     static final int maxPages = 20000;
     static final String fileName = "enwiki-20250201.xml";
+    static final int topWords = 4;
+    static final int parserShards = 1;
+    static final boolean mappedReader = false;
+    static final CountingMode_Common countingMode = CountingMode_Common.PER_TASK;
+
+    public static Options_Common defaults() {
+        return new Options_Common()
+                .setMaxPages(maxPages)
+                .setFileName(fileName)
+                .setTopWords(topWords)
+                .setParserShards(parserShards)
+                .setMappedReader(mappedReader)
+                .setCountingMode(countingMode);
+    }
 
-    private static final HashMap<String, Integer> counts =
-            new HashMap<String, Integer>();
-    
     public static void main(String[] args) throws Exception {
+        run(defaults().parse(args)).print();
+    }
+
+    public static RunResult_Common run(Options_Common options) throws Exception {
+        if (options.getCountingMode() == CountingMode_Common.SHARED)
+            throw new IllegalArgumentException("Shared counting is not supported with completable futures");
+        if (options.getCountingMode() == CountingMode_Common.APPROXIMATE)
+            throw new IllegalArgumentException("Approximate counting is not supported with completable futures");
+        options.checkReaderOptions("CompletableFutures", true, false);
+        WordCountTable_Common counts = new WordCountTable_Common();
+        StageTimer_Common stages = new StageTimer_Common("CompletableFutures");
+        // Without an explicit thread count the tasks run on the common pool, as supplyAsync does by default.
+        ForkJoinPool executor = options.getThreads() > 0 ? new ForkJoinPool(options.getThreads()) : ForkJoinPool.commonPool();
         long start = System.currentTimeMillis();
 
-        Iterable<Page_CompletableFutures> pages = new Pages_CompletableFutures(maxPages, fileName);
+        Iterable<Page_CompletableFutures> pages;
+        if (options.getMultistreamIndex() != null)
+            pages = new MultistreamPages_Common<>(options.getMaxPages(), options.getFileName(), options.getMultistreamIndex(),
+                    StreamCodec_Common.forName(options.getCodec()), options.resolveThreads(), options.getQueueCapacity(), Page_CompletableFutures::new);
+        else if (options.getParserShards() > 1)
+            pages = new ShardedPages_Common<>(options.getMaxPages(), options.getFileName(), options.getParserShards(), Page_CompletableFutures::new);
+        else if (options.isMappedReader() && options.isLazyText())
+            pages = MappedPages_Common.lazy(options.getMaxPages(), options.getFileName(), Page_CompletableFutures::new);
+        else if (options.isMappedReader())
+            pages = new MappedPages_Common<>(options.getMaxPages(), options.getFileName(), Page_CompletableFutures::new);
+        else
+            pages = new Pages_CompletableFutures(options.getMaxPages(), options.getFileName());
+        pages = stages.timePages(pages, Page_CompletableFutures::getTextLength);
 
+        DictionaryCounts_Common dictionaryCounts = options.getCountingMode() == CountingMode_Common.DICTIONARY
+                ? new DictionaryCounts_Common()
+                : null;
+        PartitionedCounts_Common partitionedCounts = options.getCountingMode() == CountingMode_Common.PARTITIONED
+                ? new PartitionedCounts_Common()
+                : null;
+        WordCounter_Common sharedCounts = dictionaryCounts != null ? dictionaryCounts : partitionedCounts;
         int chunkValue = 500;
-        
-        List<CompletableFuture<Map<String,Integer>>> futures = new ArrayList<>();
+        int maxInFlight = options.resolveMaxInFlight();
+        // Futures are queued here as they complete, so partial tables are merged in
+        // completion order by this thread while the pool keeps counting.
+        BlockingQueue<CompletableFuture<WordCountTable_Common>> completed = new LinkedBlockingQueue<>();
+        int inFlight = 0;
+
         List<Page_CompletableFutures> pageChunck = new ArrayList<>(chunkValue);
         int processedPages = 0;
+        // Summed by the workers from the decoded text, so lazy pages count chars too.
+        LongAdder textChars = new LongAdder();
 
 
         for (Page_CompletableFutures page : pages) {
@@ -28,58 +97,83 @@ public class WordCount_CompletableFutures {
             pageChunck.add(page);
             processedPages++;
             if (pageChunck.size() >= chunkValue) {
-                List<Page_CompletableFutures> toProcess = new ArrayList<>(pageChunck);
-                futures.add(
-                        CompletableFuture.supplyAsync(
-                                () -> processpageChunck(toProcess))
-                );
+                // At the in-flight limit the reader blocks until a chunk completes.
+                for (; inFlight >= maxInFlight; inFlight--)
+                    merge(counts, completed.take(), stages);
+                submit(new ArrayList<>(pageChunck), sharedCounts, textChars, stages, options, executor, completed);
+                inFlight++;
                 pageChunck.clear();
+                for (CompletableFuture<WordCountTable_Common> done; (done = completed.poll()) != null; inFlight--)
+                    merge(counts, done, stages);
             }
         }
         if (!pageChunck.isEmpty()) {
-            List<Page_CompletableFutures> toProcess = new ArrayList<>(pageChunck);
-            futures.add(
-                    CompletableFuture.supplyAsync(
-                            () -> processpageChunck(toProcess))
-            );
+            for (; inFlight >= maxInFlight; inFlight--)
+                merge(counts, completed.take(), stages);
+            submit(new ArrayList<>(pageChunck), sharedCounts, textChars, stages, options, executor, completed);
+            inFlight++;
         }
-
-        CompletableFuture<Void> allDone = CompletableFuture
-                .allOf(futures.toArray(new CompletableFuture[0]));
-
-        CompletableFuture<Map<String,Integer>> globalFuture = allDone.thenApply(v -> {
-            for (CompletableFuture<Map<String,Integer>> cf : futures) {
-                Map<String,Integer> partial = cf.join();
-                partial.forEach((word, cnt) ->
-                        counts.merge(word, cnt, Integer::sum)
-                );
-            }
-            return counts;
-        });
-
-        Map<String,Integer> counts = globalFuture.get();
-        ForkJoinPool.commonPool().awaitTermination(15, TimeUnit.SECONDS);
+        for (; inFlight > 0; inFlight--)
+            merge(counts, completed.take(), stages);
+        if (dictionaryCounts != null) {
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            counts.addAll(dictionaryCounts.merge());
+            merge.end();
+        }
+        StripedWordCountTable_Common stripedCounts = null;
+        if (partitionedCounts != null) {
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            stripedCounts = partitionedCounts.merge(executor.getParallelism(), executor);
+            merge.end();
+        }
+        if (executor != ForkJoinPool.commonPool())
+            executor.shutdown();
 
         long end = System.currentTimeMillis();
-        System.out.println("Processed pages: " + processedPages);
-        System.out.println("Elapsed time: " + (end - start) + "ms");
 
+        StageTimer_Common.Span report = stages.begin(Stage_Common.REPORT);
+        List<Map.Entry<String, Long>> commonWords = stripedCounts != null
+                ? TopK_Common.of(stripedCounts, options.getTopWords())
+                : TopK_Common.of(counts, options.getTopWords());
+        if (options.getIndexFile() != null) {
+            if (stripedCounts != null)
+                FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), stripedCounts);
+            else
+                FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), counts);
+        }
+        report.end();
+        return new RunResult_Common("CompletableFutures", executor.getParallelism(), processedPages, textChars.sum(), end - start,
+                commonWords, stages);
+    }
 
-        LinkedHashMap<String, Integer> commonWords = new LinkedHashMap<>();
-        counts.entrySet().stream().sorted(Map.Entry.comparingByValue(Comparator.reverseOrder())).forEachOrdered(x -> commonWords.put(x.getKey(), x.getValue()));
-        commonWords.entrySet().stream().limit(4).collect(Collectors.toList()).forEach(x -> System.out.println("Word: \'" + x.getKey() + "\' with total " + x.getValue() + " occurrences!"));
+    private static void submit(List<Page_CompletableFutures> pages, WordCounter_Common sharedCounts, LongAdder textChars,
+                               StageTimer_Common stages, Options_Common options, ForkJoinPool executor,
+                               BlockingQueue<CompletableFuture<WordCountTable_Common>> completed) {
+        CompletableFuture<WordCountTable_Common> future = CompletableFuture.supplyAsync(
+                () -> processpageChunck(pages, sharedCounts, textChars, stages, options.isSkipMarkup(), options.getTokenizer()), executor);
+        future.whenComplete((partial, failure) -> completed.add(future));
+    }
 
+    private static void merge(WordCountTable_Common counts, CompletableFuture<WordCountTable_Common> done, StageTimer_Common stages) {
+        WordCountTable_Common partial = done.join();
+        if (partial == null)
+            return;
+        StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+        counts.addAll(partial);
+        merge.end();
     }
 
-    private static Map<String,Integer> processpageChunck(List<Page_CompletableFutures> pages) {
-        Map<String,Integer> counts = new HashMap<>();
+    private static WordCountTable_Common processpageChunck(List<Page_CompletableFutures> pages, WordCounter_Common sharedCounts,
+                                                           LongAdder textChars, StageTimer_Common stages, boolean skipMarkup,
+                                                           TokenizerMode_Common tokenizer) {
+        WordCountTable_Common localCounts = sharedCounts == null ? new WordCountTable_Common() : null;
+        WordCounter_Common counter = sharedCounts == null ? localCounts : sharedCounts;
+        PageCounter_Common pageCounter = new PageCounter_Common(skipMarkup, tokenizer, stages);
         for (Page_CompletableFutures page : pages) {
-            for (String word : new Words_CompletableFutures(page.getText())) {
-                if (word.length() > 1 || word.equals("a") || word.equals("I")) {
-                    counts.merge(word, 1, Integer::sum);
-                }
-            }
+            String text = page.getText();
+            textChars.add(text.length());
+            pageCounter.count(text, counter);
         }
-        return counts;
+        return localCounts;
     }
 }
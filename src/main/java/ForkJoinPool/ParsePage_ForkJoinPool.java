@@ -1,57 +1,171 @@
 package ForkJoinPool;
 
-import java.util.HashMap;
+import Common.PageCounter_Common;
+import Common.PageQueue_Common;
+import Common.StageTimer_Common;
+import Common.Stage_Common;
+import Common.TokenizerMode_Common;
+import Common.WordCountTable_Common;
+import Common.WordCounter_Common;
+
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.RecursiveTask;
 
-public class ParsePage_ForkJoinPool extends RecursiveTask<Map<String, Integer>> {
+public class ParsePage_ForkJoinPool extends RecursiveTask<WordCountTable_Common> {
+
+    // Leaves hold at least this much text, however many workers there are.
+    private static final long minLeafChars = 256 * 1024;
+    private static final int leavesPerWorker = 8;
 
     private final List<Page_ForkJoinPool> pageList;
-    private final int threshold = 500;
+    private final PageQueue_Common<Page_ForkJoinPool> pageQueue;
+    private final WordCounter_Common sharedCounts;
+    private final StageTimer_Common stages;
+    private final boolean skipMarkup;
+    private final TokenizerMode_Common tokenizer;
+    private final long[] textOffsets;
+    private final int from;
+    private final int to;
+    private long leafChars;
+    // Links the right halves forked by one compute() call, joined in reverse order.
+    private ParsePage_ForkJoinPool nextSplit;
 
     int processedPages;
+    private long processedChars;
 
     public ParsePage_ForkJoinPool(List<Page_ForkJoinPool> pageList) {
+        this(pageList, null, new StageTimer_Common("ForkJoinPool"), false, TokenizerMode_Common.BREAK_ITERATOR);
+    }
+
+    public ParsePage_ForkJoinPool(List<Page_ForkJoinPool> pageList, WordCounter_Common sharedCounts, StageTimer_Common stages,
+                                  boolean skipMarkup, TokenizerMode_Common tokenizer) {
+        this(pageList, sharedCounts, stages, skipMarkup, tokenizer, textOffsets(pageList), 0, pageList.size(), 0);
+    }
+
+    public ParsePage_ForkJoinPool(PageQueue_Common<Page_ForkJoinPool> pageQueue, WordCounter_Common sharedCounts, StageTimer_Common stages,
+                                  boolean skipMarkup, TokenizerMode_Common tokenizer) {
+        this.pageList = null;
+        this.pageQueue = pageQueue;
+        this.sharedCounts = sharedCounts;
+        this.stages = stages;
+        this.skipMarkup = skipMarkup;
+        this.tokenizer = tokenizer;
+        this.textOffsets = null;
+        this.from = 0;
+        this.to = 0;
+    }
+
+    private ParsePage_ForkJoinPool(List<Page_ForkJoinPool> pageList, WordCounter_Common sharedCounts, StageTimer_Common stages,
+                                   boolean skipMarkup, TokenizerMode_Common tokenizer, long[] textOffsets, int from, int to, long leafChars) {
         this.pageList = pageList;
+        this.pageQueue = null;
+        this.sharedCounts = sharedCounts;
+        this.stages = stages;
+        this.skipMarkup = skipMarkup;
+        this.tokenizer = tokenizer;
+        this.textOffsets = textOffsets;
+        this.from = from;
+        this.to = to;
+        this.leafChars = leafChars;
+    }
+
+    /**
+     * textOffsets[i] is the total text length of pages [0, i), so the cost of any
+     * range of pages is one subtraction.
+     */
+    private static long[] textOffsets(List<Page_ForkJoinPool> pageList) {
+        long[] offsets = new long[pageList.size() + 1];
+        for (int i = 0; i < pageList.size(); i++) {
+            Page_ForkJoinPool page = pageList.get(i);
+            offsets[i + 1] = offsets[i] + (page == null ? 0 : page.getText().length());
+        }
+        return offsets;
     }
 
     @Override
-    protected Map<String, Integer> compute() {
-        int pageSize = pageList.size();
-        int mid = pageSize / 2;
-        if (pageSize >= threshold) {
-            List<Page_ForkJoinPool> pageList1 = pageList.subList(0, mid);
-            List<Page_ForkJoinPool> pageList2 = pageList.subList(mid, pageSize);
-
-            ParsePage_ForkJoinPool parsePage1 = new ParsePage_ForkJoinPool(pageList1);
-            ParsePage_ForkJoinPool parsePage2 = new ParsePage_ForkJoinPool(pageList2);
-
-            parsePage1.fork();
-            parsePage2.fork();
-
-            return mergeCounts(parsePage1.join(), parsePage2.join());
-
-        } else {
-            Map<String, Integer> localCounts = new HashMap<>();
-            for (Page_ForkJoinPool page : pageList) {
-                if (page == null) continue;
-                Iterable<String> words = new Words_ForkJoinPool(page.getText());
-                for (String word : words) {
-                    if (word.length() > 1 || word.equals("a") || word.equals("I")) {
-                        localCounts.merge(word, 1, Integer::sum);
-                    }
-                }
-            }
-            return localCounts;
+    protected WordCountTable_Common compute() {
+        if (pageQueue != null)
+            return countPages(pageQueue);
+        if (leafChars == 0)
+            leafChars = Math.max(minLeafChars, (textOffsets[to] - textOffsets[from]) / ((long) getPool().getParallelism() * leavesPerWorker));
+
+        ParsePage_ForkJoinPool right = null;
+        int end = to;
+        while (shouldSplit(from, end)) {
+            int mid = splitPoint(from, end);
+            ParsePage_ForkJoinPool task = new ParsePage_ForkJoinPool(pageList, sharedCounts, stages, skipMarkup, tokenizer, textOffsets, mid, end, leafChars);
+            task.fork();
+            task.nextSplit = right;
+            right = task;
+            end = mid;
         }
 
+        WordCountTable_Common counts = countPages(pageList.subList(from, end));
+        for (; right != null; right = right.nextSplit)
+            counts = mergeCounts(counts, right.join(), stages);
+        return counts;
+    }
+
+    /**
+     * Splits while the range holds more than one leaf worth of text. When this worker
+     * already has queued tasks nobody has stolen, leaves are allowed to grow 4x.
+     */
+    private boolean shouldSplit(int start, int end) {
+        if (end - start < 2)
+            return false;
+        long target = getSurplusQueuedTaskCount() > 3 ? leafChars * 4 : leafChars;
+        return textOffsets[end] - textOffsets[start] > target;
+    }
+
+    /**
+     * First page index that leaves at least half of the text of [start, end) on the left.
+     */
+    private int splitPoint(int start, int end) {
+        long half = textOffsets[start] + (textOffsets[end] - textOffsets[start]) / 2;
+        int low = start + 1;
+        int high = end - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (textOffsets[mid] < half)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private WordCountTable_Common countPages(Iterable<Page_ForkJoinPool> pages) {
+        WordCountTable_Common localCounts = sharedCounts == null ? new WordCountTable_Common() : null;
+        WordCounter_Common counter = sharedCounts == null ? localCounts : sharedCounts;
+        PageCounter_Common pageCounter = new PageCounter_Common(skipMarkup, tokenizer, stages);
+        for (Page_ForkJoinPool page : pages) {
+            if (page == null) continue;
+            processedChars += page.getText().length();
+            pageCounter.count(page.getText(), counter);
+        }
+        return localCounts;
+    }
+
+    /**
+     * Text counted by this task itself, not by the subtasks it forked.
+     */
+    long getProcessedChars() {
+        return processedChars;
     }
 
-    private Map<String, Integer> mergeCounts(Map<String, Integer> a, Map<String, Integer> b) {
-        for (Map.Entry<String, Integer> entry : b.entrySet()) {
-            a.merge(entry.getKey(), entry.getValue(), Integer::sum);
+    static WordCountTable_Common mergeCounts(WordCountTable_Common a, WordCountTable_Common b, StageTimer_Common stages) {
+        if (a == null)
+            return b;
+        if (b == null)
+            return a;
+        StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+        if (a.size() < b.size()) {
+            WordCountTable_Common smaller = a;
+            a = b;
+            b = smaller;
         }
+        a.addAll(b);
+        merge.end();
         return a;
     }
 }
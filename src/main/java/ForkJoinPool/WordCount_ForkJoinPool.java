@@ -1,45 +1,175 @@
 package ForkJoinPool;
 
-import java.util.Comparator;
-import java.util.LinkedHashMap;
+import Common.ApproximateCounter_Common;
+import Common.ApproximateCounts_Common;
+import Common.CountingMode_Common;
+import Common.DictionaryCounts_Common;
+import Common.FrequencyIndex_Common;
+import Common.MappedPages_Common;
+import Common.MultistreamPages_Common;
+import Common.Options_Common;
+import Common.PartitionedCounts_Common;
+import Common.PageQueue_Common;
+import Common.RunResult_Common;
+import Common.ShardedPages_Common;
+import Common.StageTimer_Common;
+import Common.Stage_Common;
+import Common.StreamCodec_Common;
+import Common.StripedWordCountTable_Common;
+import Common.TopK_Common;
+import Common.WordCountTable_Common;
+import Common.WordCounter_Common;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public class WordCount_ForkJoinPool {
     static final int maxPages = 100000;
     static final String fileName = "enwiki-20250201.xml";
+    static final int topWords = 3;
+    static final int parserShards = 1;
+    static final boolean mappedReader = false;
+    static final boolean streaming = false;
+    static final int queueCapacity = 64;
+    static final CountingMode_Common countingMode = CountingMode_Common.PER_TASK;
+    static final double approximateEpsilon = 1e-4;
+    static final double approximateDelta = 0.01;
 
+    public static Options_Common defaults() {
+        return new Options_Common()
+                .setMaxPages(maxPages)
+                .setFileName(fileName)
+                .setTopWords(topWords)
+                .setParserShards(parserShards)
+                .setMappedReader(mappedReader)
+                .setStreaming(streaming)
+                .setQueueCapacity(queueCapacity)
+                .setCountingMode(countingMode)
+                .setApproximateEpsilon(approximateEpsilon)
+                .setApproximateDelta(approximateDelta);
+    }
 
     public static void main(String[] args) throws Exception {
 
         Thread.sleep(3000);
 
-        ForkJoinPool pool = new ForkJoinPool();
+        run(defaults().parse(args)).print();
+    }
+
+    public static RunResult_Common run(Options_Common options) throws Exception {
+        options.checkReaderOptions("ForkJoinPool", false, false);
+
+        ForkJoinPool pool = new ForkJoinPool(options.resolveThreads());
+        StageTimer_Common stages = new StageTimer_Common("ForkJoinPool");
         long start = System.currentTimeMillis();
 
-        Iterable<Page_ForkJoinPool> pages = new Pages_ForkJoinPool(maxPages, fileName);
+        Iterable<Page_ForkJoinPool> pages;
+        if (options.getMultistreamIndex() != null)
+            pages = new MultistreamPages_Common<>(options.getMaxPages(), options.getFileName(), options.getMultistreamIndex(),
+                    StreamCodec_Common.forName(options.getCodec()), options.resolveThreads(), options.getQueueCapacity(), Page_ForkJoinPool::new);
+        else if (options.getParserShards() > 1)
+            pages = new ShardedPages_Common<>(options.getMaxPages(), options.getFileName(), options.getParserShards(), Page_ForkJoinPool::new);
+        else if (options.isMappedReader())
+            pages = new MappedPages_Common<>(options.getMaxPages(), options.getFileName(), Page_ForkJoinPool::new);
+        else
+            pages = new Pages_ForkJoinPool(options.getMaxPages(), options.getFileName());
+        pages = stages.timePages(pages, page -> page.getText().length());
 
 
-        List<Page_ForkJoinPool> pageList =
-                StreamSupport.stream(pages.spliterator(), false)
-                        .collect(Collectors.toList());
+        StripedWordCountTable_Common stripedCounts = options.getCountingMode() == CountingMode_Common.SHARED
+                ? new StripedWordCountTable_Common(4 * pool.getParallelism())
+                : null;
+        ApproximateCounts_Common approximateCounts = options.getCountingMode() == CountingMode_Common.APPROXIMATE
+                ? new ApproximateCounts_Common(options.getApproximateEpsilon(), options.getApproximateDelta())
+                : null;
+        DictionaryCounts_Common dictionaryCounts = options.getCountingMode() == CountingMode_Common.DICTIONARY
+                ? new DictionaryCounts_Common()
+                : null;
+        PartitionedCounts_Common partitionedCounts = options.getCountingMode() == CountingMode_Common.PARTITIONED
+                ? new PartitionedCounts_Common()
+                : null;
+        WordCounter_Common sharedCounts = stripedCounts != null ? stripedCounts
+                : approximateCounts != null ? approximateCounts
+                : dictionaryCounts != null ? dictionaryCounts
+                : partitionedCounts;
+        int processedPages;
+        long textChars = 0;
+        WordCountTable_Common wordCounts;
+        if (options.isStreaming()) {
+            PageQueue_Common<Page_ForkJoinPool> pageQueue = PageQueue_Common.fill(pages, options.getQueueCapacity());
+            List<ParsePage_ForkJoinPool> consumers = new ArrayList<>();
+            List<ForkJoinTask<WordCountTable_Common>> results = new ArrayList<>();
+            for (int i = 0; i < pool.getParallelism(); i++) {
+                ParsePage_ForkJoinPool consumer = new ParsePage_ForkJoinPool(pageQueue, sharedCounts, stages, options.isSkipMarkup(), options.getTokenizer());
+                consumers.add(consumer);
+                results.add(pool.submit(consumer));
+            }
 
+            wordCounts = results.get(0).join();
+            for (int i = 1; i < results.size(); i++)
+                wordCounts = ParsePage_ForkJoinPool.mergeCounts(wordCounts, results.get(i).join(), stages);
+            for (ParsePage_ForkJoinPool consumer : consumers)
+                textChars += consumer.getProcessedChars();
+            processedPages = pageQueue.getQueuedPages();
+        } else {
+            // The XML readers end with a null page, which is not a page to count.
+            List<Page_ForkJoinPool> pageList =
+                    StreamSupport.stream(pages.spliterator(), false)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList());
 
-        int processedPages = pageList.size();
-        ParsePage_ForkJoinPool parsePage = new ParsePage_ForkJoinPool(pageList);
-        Map<String, Integer> wordCounts = pool.invoke(parsePage);
 
+            processedPages = pageList.size();
+            for (Page_ForkJoinPool page : pageList)
+                if (page != null)
+                    textChars += page.getText().length();
+            ParsePage_ForkJoinPool parsePage = new ParsePage_ForkJoinPool(pageList, sharedCounts, stages, options.isSkipMarkup(), options.getTokenizer());
+            wordCounts = pool.invoke(parsePage);
+        }
+        if (partitionedCounts != null) {
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            stripedCounts = partitionedCounts.merge(pool.getParallelism(), pool);
+            merge.end();
+        }
+        pool.shutdown();
+        if (dictionaryCounts != null) {
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            wordCounts = dictionaryCounts.merge();
+            merge.end();
+        }
 
-        long end = System.currentTimeMillis();
-        System.out.println("Processed pages: " + processedPages);
-        System.out.println("Elapsed time: " + (end - start) + "ms");
 
-        LinkedHashMap<String, Integer> commonWords = new LinkedHashMap<>();
-        wordCounts.entrySet().stream().sorted(Map.Entry.comparingByValue(Comparator.reverseOrder())).forEachOrdered(x -> commonWords.put(x.getKey(), x.getValue()));
-        commonWords.entrySet().stream().limit(3).collect(Collectors.toList()).forEach(x -> System.out.println("Word: \'" + x.getKey() + "\' with total " + x.getValue() + " occurrences!"));
+        long end = System.currentTimeMillis();
 
+        if (approximateCounts != null) {
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            ApproximateCounter_Common merged = approximateCounts.merge();
+            merge.end();
+            StageTimer_Common.Span report = stages.begin(Stage_Common.REPORT);
+            List<ApproximateCounter_Common.Estimate> estimates = merged.top(options.getTopWords());
+            report.end();
+            return new RunResult_Common("ForkJoinPool", pool.getParallelism(), processedPages, textChars, end - start,
+                    estimates, merged.errorBounds(), stages);
+        }
+        StageTimer_Common.Span report = stages.begin(Stage_Common.REPORT);
+        List<Map.Entry<String, Long>> commonWords = stripedCounts != null
+                ? TopK_Common.of(stripedCounts, options.getTopWords())
+                : TopK_Common.of(wordCounts, options.getTopWords());
+        if (options.getIndexFile() != null) {
+            if (stripedCounts != null)
+                FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), stripedCounts);
+            else
+                FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), wordCounts);
+        }
+        report.end();
+        return new RunResult_Common("ForkJoinPool", pool.getParallelism(), processedPages, textChars, end - start,
+                commonWords, stages);
     }
 }
@@ -0,0 +1,19 @@
+package ParallelStreams;
+
+class Page_ParallelStreams {
+    private String title;
+    private String text;
+
+    public Page_ParallelStreams(String title, String text) {
+        this.title = title;
+        this.text = text;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,88 @@
+package ParallelStreams;
+
+import Common.PageCounter_Common;
+import Common.StageTimer_Common;
+import Common.Stage_Common;
+import Common.StripedWordCountTable_Common;
+import Common.TokenizerMode_Common;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * A concurrent collector that tokenizes every page it is given and counts the words
+ * into one {@link StripedWordCountTable_Common}. Being CONCURRENT and UNORDERED, a
+ * parallel stream calls the accumulator from all its workers on the same table
+ * instead of building a table per split and combining them.
+ */
+class ParsePage_ParallelStreams implements Collector<Page_ParallelStreams, StripedWordCountTable_Common, StripedWordCountTable_Common> {
+
+    private final int concurrency;
+    private final StageTimer_Common stages;
+    private final ThreadLocal<PageCounter_Common> pageCounters;
+    private final LongAdder processedPages = new LongAdder();
+    private final LongAdder processedChars = new LongAdder();
+
+    ParsePage_ParallelStreams(int concurrency, StageTimer_Common stages, boolean skipMarkup, TokenizerMode_Common tokenizer) {
+        this.concurrency = concurrency;
+        this.stages = stages;
+        this.pageCounters = ThreadLocal.withInitial(() -> new PageCounter_Common(skipMarkup, tokenizer, stages));
+    }
+
+    @Override
+    public Supplier<StripedWordCountTable_Common> supplier() {
+        return () -> new StripedWordCountTable_Common(concurrency);
+    }
+
+    @Override
+    public BiConsumer<StripedWordCountTable_Common, Page_ParallelStreams> accumulator() {
+        return this::countPage;
+    }
+
+    private void countPage(StripedWordCountTable_Common counts, Page_ParallelStreams page) {
+        pageCounters.get().count(page.getText(), counts);
+        processedPages.increment();
+        processedChars.add(page.getText().length());
+    }
+
+    /**
+     * Concurrent reduction never calls this, but a per-split reduction would. Both
+     * tables have the same stripes, so they can be added stripe by stripe.
+     */
+    @Override
+    public BinaryOperator<StripedWordCountTable_Common> combiner() {
+        return (a, b) -> {
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            for (int stripe = 0; stripe < a.stripeCount(); stripe++)
+                a.stripe(stripe).addAll(b.stripe(stripe));
+            merge.end();
+            return a;
+        };
+    }
+
+    @Override
+    public Function<StripedWordCountTable_Common, StripedWordCountTable_Common> finisher() {
+        return Function.identity();
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Collections.unmodifiableSet(EnumSet.of(Characteristics.CONCURRENT, Characteristics.UNORDERED,
+                Characteristics.IDENTITY_FINISH));
+    }
+
+    int getProcessedPages() {
+        return processedPages.intValue();
+    }
+
+    long getProcessedChars() {
+        return processedChars.sum();
+    }
+}
@@ -0,0 +1,76 @@
+package ParallelStreams;
+
+import Common.CountingMode_Common;
+import Common.FrequencyIndex_Common;
+import Common.Options_Common;
+import Common.PageSpliterator_Common;
+import Common.RunResult_Common;
+import Common.StageTimer_Common;
+import Common.Stage_Common;
+import Common.StripedWordCountTable_Common;
+import Common.TopK_Common;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.StreamSupport;
+
+public class WordCount_ParallelStreams {
+    static final int maxPages = 20000;
+    static final String fileName = "enwiki-20250201.xml";
+    static final int topWords = 4;
+    // The collector counts into one concurrent table, so shared counting is the only mode.
+    static final CountingMode_Common countingMode = CountingMode_Common.SHARED;
+
+    public static Options_Common defaults() {
+        return new Options_Common()
+                .setMaxPages(maxPages)
+                .setFileName(fileName)
+                .setTopWords(topWords)
+                .setCountingMode(countingMode);
+    }
+
+    public static void main(String[] args) throws Exception {
+        run(defaults().parse(args)).print();
+    }
+
+    /**
+     * Pages always come from the mapped dump, split by {@link PageSpliterator_Common};
+     * the reader options of the other engines do not apply.
+     */
+    public static RunResult_Common run(Options_Common options) throws Exception {
+        if (options.getCountingMode() != CountingMode_Common.SHARED)
+            throw new IllegalArgumentException("Parallel streams only support shared counting");
+        options.checkReaderOptions("ParallelStreams", false, false);
+        ForkJoinPool pool = new ForkJoinPool(options.resolveThreads());
+        StageTimer_Common stages = new StageTimer_Common("ParallelStreams");
+        long start = System.currentTimeMillis();
+
+        ParsePage_ParallelStreams parsePage = new ParsePage_ParallelStreams(4 * pool.getParallelism(), stages,
+                options.isSkipMarkup(), options.getTokenizer());
+        StripedWordCountTable_Common counts;
+        System.out.println("Max pages: " + options.getMaxPages());
+        try (FileChannel channel = FileChannel.open(Paths.get(options.getFileName()), StandardOpenOption.READ)) {
+            Spliterator<Page_ParallelStreams> pages = stages.timePages(
+                    new PageSpliterator_Common<>(channel, options.getMaxPages(), Page_ParallelStreams::new),
+                    page -> page.getText().length());
+            // A parallel stream runs on the pool its terminal operation is called from.
+            counts = pool.submit(() -> StreamSupport.stream(pages, true).collect(parsePage)).get();
+        }
+        pool.shutdown();
+
+        long end = System.currentTimeMillis();
+
+        StageTimer_Common.Span report = stages.begin(Stage_Common.REPORT);
+        List<Map.Entry<String, Long>> commonWords = TopK_Common.of(counts, options.getTopWords());
+        if (options.getIndexFile() != null)
+            FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), counts);
+        report.end();
+        return new RunResult_Common("ParallelStreams", pool.getParallelism(), parsePage.getProcessedPages(),
+                parsePage.getProcessedChars(), end - start, commonWords, stages);
+    }
+}
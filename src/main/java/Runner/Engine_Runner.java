@@ -0,0 +1,53 @@
+package Runner;
+
+import CompletableFutures.WordCount_CompletableFutures;
+import Common.Options_Common;
+import Common.WordCountEngine_Common;
+import ForkJoinPool.WordCount_ForkJoinPool;
+import ParallelStreams.WordCount_ParallelStreams;
+import Sequential.WordCount_Sequential;
+import VirtualThreads.WordCount_VirtualThreads;
+import WithThreadPool.WordCount_WithThreadPool;
+import WithoutThreadPool.WordCount_WithoutThreadPool;
+
+import java.util.function.Supplier;
+
+/**
+ * The engines the runner can measure, with each engine's own default options.
+ */
+public enum Engine_Runner {
+    SEQUENTIAL(WordCount_Sequential::defaults, WordCount_Sequential::run),
+    WITHOUT_THREAD_POOL(WordCount_WithoutThreadPool::defaults, WordCount_WithoutThreadPool::run),
+    WITH_THREAD_POOL(WordCount_WithThreadPool::defaults, WordCount_WithThreadPool::run),
+    FORK_JOIN_POOL(WordCount_ForkJoinPool::defaults, WordCount_ForkJoinPool::run),
+    COMPLETABLE_FUTURES(WordCount_CompletableFutures::defaults, WordCount_CompletableFutures::run),
+    VIRTUAL_THREADS(WordCount_VirtualThreads::defaults, WordCount_VirtualThreads::run),
+    PARALLEL_STREAMS(WordCount_ParallelStreams::defaults, WordCount_ParallelStreams::run);
+
+    private final Supplier<Options_Common> defaults;
+    private final WordCountEngine_Common engine;
+
+    Engine_Runner(Supplier<Options_Common> defaults, WordCountEngine_Common engine) {
+        this.defaults = defaults;
+        this.engine = engine;
+    }
+
+    public Options_Common defaults() {
+        return defaults.get();
+    }
+
+    public WordCountEngine_Common engine() {
+        return engine;
+    }
+
+    /**
+     * Accepts the constant name or the package name, e.g. FORK_JOIN_POOL or ForkJoinPool.
+     */
+    public static Engine_Runner forName(String name) {
+        String key = name.replace("_", "");
+        for (Engine_Runner engine : values())
+            if (engine.name().replace("_", "").equalsIgnoreCase(key))
+                return engine;
+        throw new IllegalArgumentException("Unknown engine " + name);
+    }
+}
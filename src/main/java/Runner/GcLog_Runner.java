@@ -0,0 +1,192 @@
+package Runner;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pause and heap statistics from a unified JVM GC log ({@code -Xlog:gc*}), for G1,
+ * Parallel and ZGC. The summary prints one {@code key: value} line per statistic in
+ * a fixed order, so two runs can be compared with diff:
+ *
+ * <pre>
+ * java -cp target/classes Runner.GcLog_Runner G1GC_1st_Try.log [--timeline=heap.csv]
+ * </pre>
+ *
+ * Allocation is estimated from the heap before each collection minus the heap after the
+ * previous one, which is exact for stop-the-world collectors and approximate for ZGC.
+ */
+public class GcLog_Runner {
+
+    private static final Pattern TIME = Pattern.compile("^\\[([\\d.]+)s\\]");
+    private static final Pattern COLLECTOR = Pattern.compile("\\[gc\\s*\\] Using (.+)$");
+    // G1 and Parallel: "GC(3) Pause Young (Normal) (G1 Evacuation Pause) 500M->254M(7168M) 12.907ms"
+    // ZGC phases:      "GC(0) Pause Mark Start 0.013ms"
+    private static final Pattern PAUSE = Pattern.compile(
+            "\\bGC\\(\\d+\\) (Pause .*?) (?:(\\d+)M->(\\d+)M\\((\\d+)M\\) )?([\\d.]+)ms$");
+    // ZGC cycle summary: "GC(0) Garbage Collection (Warmup) 1624M(11%)->438M(3%)"
+    private static final Pattern ZGC_CYCLE = Pattern.compile(
+            "\\[gc\\s*\\] GC\\(\\d+\\) Garbage Collection \\(.*?\\) (\\d+)M\\(\\d+%\\)->(\\d+)M\\(\\d+%\\)$");
+
+    private String collector = "unknown";
+    private double runtimeSeconds;
+    private final List<double[]> pauses = new ArrayList<>();     // {time, millis}
+    private final List<double[]> heap = new ArrayList<>();       // {time, beforeMB, afterMB}
+
+    public static GcLog_Runner parse(Path file) throws IOException {
+        GcLog_Runner log = new GcLog_Runner();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+            log.addLine(line);
+        return log;
+    }
+
+    private void addLine(String line) {
+        Matcher time = TIME.matcher(line);
+        if (!time.find())
+            return;
+        double seconds = Double.parseDouble(time.group(1));
+        runtimeSeconds = Math.max(runtimeSeconds, seconds);
+
+        Matcher matcher = COLLECTOR.matcher(line);
+        if (matcher.find()) {
+            collector = matcher.group(1);
+            return;
+        }
+        matcher = PAUSE.matcher(line);
+        if (matcher.find()) {
+            pauses.add(new double[]{seconds, Double.parseDouble(matcher.group(5))});
+            if (matcher.group(2) != null)
+                heap.add(new double[]{seconds, Double.parseDouble(matcher.group(2)), Double.parseDouble(matcher.group(3))});
+            return;
+        }
+        matcher = ZGC_CYCLE.matcher(line);
+        if (matcher.find())
+            heap.add(new double[]{seconds, Double.parseDouble(matcher.group(1)), Double.parseDouble(matcher.group(2))});
+    }
+
+    public String getCollector() {
+        return collector;
+    }
+
+    public double getRuntimeSeconds() {
+        return runtimeSeconds;
+    }
+
+    public int getPauseCount() {
+        return pauses.size();
+    }
+
+    public double getTotalPauseMillis() {
+        double total = 0;
+        for (double[] pause : pauses)
+            total += pause[1];
+        return total;
+    }
+
+    /**
+     * Pause time at the given percentile (0-100), nearest-rank.
+     */
+    public double getPausePercentile(double percentile) {
+        if (pauses.isEmpty())
+            return 0;
+        double[] millis = new double[pauses.size()];
+        for (int i = 0; i < millis.length; i++)
+            millis[i] = pauses.get(i)[1];
+        Arrays.sort(millis);
+        int rank = (int) Math.ceil(percentile / 100 * millis.length);
+        return millis[Math.max(0, Math.min(millis.length - 1, rank - 1))];
+    }
+
+    /**
+     * Share of the run not spent in pauses, in percent.
+     */
+    public double getThroughputPercent() {
+        return runtimeSeconds == 0 ? 100 : 100 * (1 - getTotalPauseMillis() / 1000 / runtimeSeconds);
+    }
+
+    public double getAllocatedMB() {
+        double allocated = 0;
+        double previousAfter = 0;
+        for (double[] point : heap) {
+            allocated += Math.max(0, point[1] - previousAfter);
+            previousAfter = point[2];
+        }
+        return allocated;
+    }
+
+    public double getAllocationRateMBPerSecond() {
+        return runtimeSeconds == 0 ? 0 : getAllocatedMB() / runtimeSeconds;
+    }
+
+    public double getMaxHeapAfterGcMB() {
+        double max = 0;
+        for (double[] point : heap)
+            max = Math.max(max, point[2]);
+        return max;
+    }
+
+    public void printSummary(PrintStream out) {
+        out.println("collector: " + collector);
+        out.println("runtime_s: " + format(runtimeSeconds));
+        out.println("pauses: " + pauses.size());
+        out.println("pause_total_ms: " + format(getTotalPauseMillis()));
+        out.println("pause_p50_ms: " + format(getPausePercentile(50)));
+        out.println("pause_p90_ms: " + format(getPausePercentile(90)));
+        out.println("pause_p99_ms: " + format(getPausePercentile(99)));
+        out.println("pause_max_ms: " + format(getPausePercentile(100)));
+        out.println("gc_throughput_pct: " + format(getThroughputPercent()));
+        out.println("allocated_mb: " + format(getAllocatedMB()));
+        out.println("allocation_rate_mb_s: " + format(getAllocationRateMBPerSecond()));
+        out.println("heap_after_gc_max_mb: " + format(getMaxHeapAfterGcMB()));
+        out.println("heap_after_gc_last_mb: " + format(heap.isEmpty() ? 0 : heap.get(heap.size() - 1)[2]));
+    }
+
+    /**
+     * Heap before and after every collection over time, as CSV.
+     */
+    public void printTimeline(PrintStream out) {
+        out.println("time_s,heap_before_mb,heap_after_mb");
+        for (double[] point : heap)
+            out.println(format(point[0]) + "," + format(point[1]) + "," + format(point[2]));
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String timeline = null;
+        List<String> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--timeline="))
+                timeline = arg.substring("--timeline=".length());
+            else
+                files.add(arg);
+        }
+        if (files.isEmpty()) {
+            System.out.println("Usage: GcLog_Runner <gc.log>... [--timeline=file.csv]");
+            return;
+        }
+        for (String file : files) {
+            GcLog_Runner log = parse(Paths.get(file));
+            System.out.println("file: " + file);
+            log.printSummary(System.out);
+            System.out.println();
+            if (timeline != null) {
+                String name = files.size() == 1 ? timeline : timeline.replace(".csv", "") + "-" + Paths.get(file).getFileName() + ".csv";
+                try (PrintStream out = new PrintStream(name, "UTF-8")) {
+                    log.printTimeline(out);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package Runner;
+
+import Common.Stage_Common;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes trials as CSV or JSON, one record per trial.
+ */
+public class Report_Runner {
+
+    private static final String[] COLUMNS = {
+            "engine", "maxPages", "trial", "threads", "processedPages", "textChars", "elapsedMillis",
+            "pagesPerSecond", "megabytesPerSecond", "gcMillis", "gcCount", "speedup", "efficiency",
+            "parseMillis", "tokenizeMillis", "countMillis", "mergeMillis", "reportMillis",
+            "pauseTotalMillis", "pauseP50Millis", "pauseP99Millis", "pauseMaxMillis", "gcThroughputPercent",
+            "allocationMBPerSecond", "maxHeapAfterGcMB"
+    };
+
+    public static void write(List<Trial_Runner> trials, String format, PrintStream out) {
+        if (format.equalsIgnoreCase("json"))
+            writeJson(trials, out);
+        else if (format.equalsIgnoreCase("csv"))
+            writeCsv(trials, out);
+        else
+            throw new IllegalArgumentException("Unknown format " + format);
+    }
+
+    private static void writeCsv(List<Trial_Runner> trials, PrintStream out) {
+        out.println(String.join(",", COLUMNS));
+        for (Trial_Runner trial : trials)
+            out.println(String.join(",", values(trial)));
+    }
+
+    private static void writeJson(List<Trial_Runner> trials, PrintStream out) {
+        out.println("[");
+        for (int i = 0; i < trials.size(); i++) {
+            String[] values = values(trials.get(i));
+            StringBuilder line = new StringBuilder("  {");
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (c > 0)
+                    line.append(", ");
+                line.append('"').append(COLUMNS[c]).append("\": ");
+                line.append(c == 0 ? "\"" + values[c] + "\"" : values[c]);
+            }
+            line.append(i + 1 < trials.size() ? "}," : "}");
+            out.println(line);
+        }
+        out.println("]");
+    }
+
+    private static String[] values(Trial_Runner trial) {
+        GcLog_Runner gcLog = trial.getGcLog();
+        return new String[]{
+                trial.getEngine().name(),
+                String.valueOf(trial.getMaxPages()),
+                String.valueOf(trial.getTrial()),
+                String.valueOf(trial.getThreads()),
+                String.valueOf(trial.getProcessedPages()),
+                String.valueOf(trial.getTextChars()),
+                String.valueOf(trial.getElapsedMillis()),
+                number(trial.getPagesPerSecond()),
+                number(trial.getMegabytesPerSecond()),
+                String.valueOf(trial.getGcMillis()),
+                String.valueOf(trial.getGcCount()),
+                number(trial.getSpeedup()),
+                number(trial.getEfficiency()),
+                String.valueOf(trial.getStageMillis(Stage_Common.PARSE)),
+                String.valueOf(trial.getStageMillis(Stage_Common.TOKENIZE)),
+                String.valueOf(trial.getStageMillis(Stage_Common.COUNT)),
+                String.valueOf(trial.getStageMillis(Stage_Common.MERGE)),
+                String.valueOf(trial.getStageMillis(Stage_Common.REPORT)),
+                gcLog == null ? "null" : number(gcLog.getTotalPauseMillis()),
+                gcLog == null ? "null" : number(gcLog.getPausePercentile(50)),
+                gcLog == null ? "null" : number(gcLog.getPausePercentile(99)),
+                gcLog == null ? "null" : number(gcLog.getPausePercentile(100)),
+                gcLog == null ? "null" : number(gcLog.getThroughputPercent()),
+                gcLog == null ? "null" : number(gcLog.getAllocationRateMBPerSecond()),
+                gcLog == null ? "null" : number(gcLog.getMaxHeapAfterGcMB())
+        };
+    }
+
+    // JSON has no NaN, and CSV readers handle null as well as an empty cell.
+    private static String number(double value) {
+        return Double.isNaN(value) ? "null" : String.format(Locale.ROOT, "%.3f", value);
+    }
+}
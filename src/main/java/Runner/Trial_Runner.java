@@ -0,0 +1,129 @@
+package Runner;
+
+import Common.RunResult_Common;
+import Common.Stage_Common;
+
+/**
+ * One measured run of one engine, plus the JVM's garbage collection during that run.
+ * Speedup and efficiency are filled in once the sequential baseline is known.
+ */
+public class Trial_Runner {
+
+    private final Engine_Runner engine;
+    private final int maxPages;
+    private final int trial;
+    private final int threads;
+    private final int processedPages;
+    private final long textChars;
+    private final long elapsedMillis;
+    private final long gcMillis;
+    private final long gcCount;
+    private final long[] stageMillis;
+    private double speedup = Double.NaN;
+    private double efficiency = Double.NaN;
+    private GcLog_Runner gcLog;
+
+    public Trial_Runner(Engine_Runner engine, int maxPages, int trial, int threads, int processedPages,
+                        long textChars, long elapsedMillis, long gcMillis, long gcCount, long[] stageMillis) {
+        this.engine = engine;
+        this.maxPages = maxPages;
+        this.trial = trial;
+        this.threads = threads;
+        this.processedPages = processedPages;
+        this.textChars = textChars;
+        this.elapsedMillis = elapsedMillis;
+        this.gcMillis = gcMillis;
+        this.gcCount = gcCount;
+        this.stageMillis = stageMillis;
+    }
+
+    public Trial_Runner(Engine_Runner engine, int maxPages, int trial, RunResult_Common result, long gcMillis, long gcCount) {
+        this(engine, maxPages, trial, result.getThreads(), result.getProcessedPages(), result.getTextChars(),
+                result.getElapsedMillis(), gcMillis, gcCount, stageMillis(result));
+    }
+
+    private static long[] stageMillis(RunResult_Common result) {
+        long[] millis = new long[Stage_Common.values().length];
+        for (Stage_Common stage : Stage_Common.values())
+            millis[stage.ordinal()] = result.getStages().getMillis(stage);
+        return millis;
+    }
+
+    void setBaseline(double sequentialMillis) {
+        speedup = sequentialMillis / Math.max(1, elapsedMillis);
+        efficiency = speedup / threads;
+    }
+
+    void setGcLog(GcLog_Runner gcLog) {
+        this.gcLog = gcLog;
+    }
+
+    /**
+     * The trial's parsed GC log; only forked trials run with a GC log directory have one.
+     */
+    public GcLog_Runner getGcLog() {
+        return gcLog;
+    }
+
+    public Engine_Runner getEngine() {
+        return engine;
+    }
+
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    public int getTrial() {
+        return trial;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getProcessedPages() {
+        return processedPages;
+    }
+
+    public long getTextChars() {
+        return textChars;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getGcMillis() {
+        return gcMillis;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * Thread time spent in one stage, summed over all threads.
+     */
+    public long getStageMillis(Stage_Common stage) {
+        return stageMillis[stage.ordinal()];
+    }
+
+    public double getPagesPerSecond() {
+        return processedPages * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    /**
+     * Page text tokenized per second, counting one byte per character.
+     */
+    public double getMegabytesPerSecond() {
+        return textChars / 1e6 * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    public double getSpeedup() {
+        return speedup;
+    }
+
+    public double getEfficiency() {
+        return efficiency;
+    }
+}
@@ -0,0 +1,243 @@
+package Runner;
+
+import Common.Options_Common;
+import Common.RunResult_Common;
+import Common.Stage_Common;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs engines over a sweep of page counts and thread counts, with warmup runs and
+ * repeated trials, and reports every trial as CSV or JSON:
+ *
+ * <pre>
+ * java -cp target/classes Runner.WordCount_Runner --engines=Sequential,ForkJoinPool \
+ *     --pages=20000,40000,80000 --threads=1,2,4,8 --trials=3 --warmup=1 --format=csv
+ * </pre>
+ *
+ * With {@code --fork} every trial runs in a fresh JVM started with {@code --jvmArgs};
+ * otherwise all runs share this JVM. Forked trials given {@code --gcLogs=dir} also log
+ * with {@code -Xlog:gc*} into that directory, and the {@link GcLog_Runner} statistics
+ * of each log are added to its trial. Sequential always runs as the baseline for speedup
+ * and efficiency. Any other {@code --name=value} argument is passed to the engines.
+ */
+public class WordCount_Runner {
+
+    private static final String RESULT_PREFIX = "RESULT\t";
+
+    private final List<Engine_Runner> engines = new ArrayList<>();
+    private int[] pageCounts = {20000};
+    private int[] threadCounts = {0};
+    private int trials = 3;
+    private int warmup = 1;
+    private boolean fork = false;
+    private List<String> jvmArgs = new ArrayList<>();
+    private String format = "csv";
+    private String output = null;
+    private String gcLogs = null;
+    private boolean child = false;
+    private final List<String> engineArgs = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        WordCount_Runner runner = new WordCount_Runner();
+        runner.parse(args);
+        if (runner.child)
+            runner.runChild();
+        else
+            runner.runAll();
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = equals < 0 ? arg : arg.substring(0, equals);
+            String value = equals < 0 ? "true" : arg.substring(equals + 1);
+            switch (name) {
+                case "--engines":
+                    for (String engine : value.split(","))
+                        engines.add(Engine_Runner.forName(engine.trim()));
+                    break;
+                case "--pages": pageCounts = ints(value); break;
+                case "--threads": threadCounts = ints(value); break;
+                case "--trials": trials = Integer.parseInt(value); break;
+                case "--warmup": warmup = Integer.parseInt(value); break;
+                case "--fork": fork = Boolean.parseBoolean(value); break;
+                case "--jvmArgs": jvmArgs = Arrays.asList(value.trim().split("\\s+")); break;
+                case "--format": format = value; break;
+                case "--output": output = value; break;
+                case "--gcLogs": gcLogs = value; break;
+                case "--child": child = true; break;
+                default:
+                    if (!new Options_Common().set(arg))
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                    engineArgs.add(arg);
+            }
+        }
+        if (engines.isEmpty())
+            engines.addAll(Arrays.asList(Engine_Runner.values()));
+    }
+
+    private static int[] ints(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private void runAll() throws Exception {
+        if (gcLogs != null && !fork)
+            throw new IllegalArgumentException("--gcLogs needs --fork, so each trial has its own log");
+        if (!engines.contains(Engine_Runner.SEQUENTIAL))
+            engines.add(0, Engine_Runner.SEQUENTIAL);
+        List<Trial_Runner> results = new ArrayList<>();
+        for (int pages : pageCounts) {
+            List<Trial_Runner> baseline = new ArrayList<>();
+            for (Engine_Runner engine : engines) {
+                // Sequential ignores the thread count, so it is measured once per page count.
+                int[] sweep = engine == Engine_Runner.SEQUENTIAL ? new int[]{1} : threadCounts;
+                for (int threads : sweep) {
+                    List<Trial_Runner> trialsRun = fork ? forked(engine, pages, threads) : inProcess(engine, pages, threads);
+                    if (engine == Engine_Runner.SEQUENTIAL)
+                        baseline.addAll(trialsRun);
+                    results.addAll(trialsRun);
+                }
+            }
+            double sequentialMillis = baseline.stream().mapToLong(Trial_Runner::getElapsedMillis).average().orElse(Double.NaN);
+            for (Trial_Runner trial : results)
+                if (trial.getMaxPages() == pages)
+                    trial.setBaseline(sequentialMillis);
+        }
+
+        if (output == null) {
+            Report_Runner.write(results, format, System.out);
+        } else {
+            try (PrintStream out = new PrintStream(new FileOutputStream(output), true, "UTF-8")) {
+                Report_Runner.write(results, format, out);
+            }
+            System.out.println("Wrote " + results.size() + " trials to " + output);
+        }
+    }
+
+    /**
+     * The sequential baseline always counts exactly with its own default mode and eager
+     * page text, since it supports nothing else; the other engines get both from the
+     * arguments.
+     */
+    private Options_Common options(Engine_Runner engine, int pages, int threads) {
+        Options_Common options = engine.defaults()
+                .parse(engineArgs.toArray(new String[0]))
+                .setMaxPages(pages)
+                .setThreads(threads);
+        if (engine == Engine_Runner.SEQUENTIAL)
+            options.setCountingMode(engine.defaults().getCountingMode()).setLazyText(false);
+        return options;
+    }
+
+    private List<Trial_Runner> inProcess(Engine_Runner engine, int pages, int threads) throws Exception {
+        Options_Common options = options(engine, pages, threads);
+        for (int i = 0; i < warmup; i++)
+            engine.engine().run(options);
+        List<Trial_Runner> results = new ArrayList<>();
+        for (int trial = 1; trial <= trials; trial++)
+            results.add(measure(engine, options, trial));
+        return results;
+    }
+
+    private static Trial_Runner measure(Engine_Runner engine, Options_Common options, int trial) throws Exception {
+        System.gc();
+        long[] gcBefore = gcTotals();
+        RunResult_Common result = engine.engine().run(options);
+        long[] gcAfter = gcTotals();
+        return new Trial_Runner(engine, options.getMaxPages(), trial, result,
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    /**
+     * Collection time in milliseconds and collection count, summed over all collectors.
+     */
+    private static long[] gcTotals() {
+        long millis = 0;
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return new long[]{millis, count};
+    }
+
+    private List<Trial_Runner> forked(Engine_Runner engine, int pages, int threads) throws Exception {
+        List<Trial_Runner> results = new ArrayList<>();
+        for (int trial = 1; trial <= trials; trial++) {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            for (String jvmArg : jvmArgs)
+                if (!jvmArg.isEmpty())
+                    command.add(jvmArg);
+            Path gcLog = null;
+            if (gcLogs != null) {
+                Files.createDirectories(Paths.get(gcLogs));
+                gcLog = Paths.get(gcLogs, engine.name() + "-p" + pages + "-t" + threads + "-" + trial + ".log");
+                command.add("-Xlog:gc*:file=" + gcLog);
+            }
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(WordCount_Runner.class.getName());
+            command.add("--child");
+            command.add("--engines=" + engine.name());
+            command.add("--pages=" + pages);
+            command.add("--threads=" + threads);
+            command.add("--warmup=" + warmup);
+            command.addAll(engineArgs);
+
+            Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            String resultLine = null;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"))) {
+                String line;
+                while ((line = reader.readLine()) != null)
+                    if (line.startsWith(RESULT_PREFIX))
+                        resultLine = line;
+            }
+            if (process.waitFor() != 0 || resultLine == null)
+                throw new IllegalStateException("Forked run of " + engine + " failed: " + String.join(" ", command));
+            String[] fields = resultLine.split("\t");
+            long[] stageMillis = new long[Stage_Common.values().length];
+            for (int i = 0; i < stageMillis.length; i++)
+                stageMillis[i] = Long.parseLong(fields[7 + i]);
+            Trial_Runner result = new Trial_Runner(engine, pages, trial, Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                    Long.parseLong(fields[3]), Long.parseLong(fields[4]), Long.parseLong(fields[5]), Long.parseLong(fields[6]),
+                    stageMillis);
+            if (gcLog != null)
+                result.setGcLog(GcLog_Runner.parse(gcLog));
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Forked side: warmup runs, then one measured run reported on a single line.
+     */
+    private void runChild() throws Exception {
+        Engine_Runner engine = engines.get(0);
+        Options_Common options = options(engine, pageCounts[0], threadCounts[0]);
+        for (int i = 0; i < warmup; i++)
+            engine.engine().run(options);
+        Trial_Runner trial = measure(engine, options, 1);
+        StringBuilder line = new StringBuilder(RESULT_PREFIX).append(trial.getThreads())
+                .append('\t').append(trial.getProcessedPages())
+                .append('\t').append(trial.getTextChars())
+                .append('\t').append(trial.getElapsedMillis())
+                .append('\t').append(trial.getGcMillis())
+                .append('\t').append(trial.getGcCount());
+        for (Stage_Common stage : Stage_Common.values())
+            line.append('\t').append(trial.getStageMillis(stage));
+        System.out.println(line);
+    }
+}
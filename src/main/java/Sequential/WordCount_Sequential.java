@@ -1,49 +1,119 @@
 package Sequential;
 
-import java.util.*;
+import Common.Checkpoint_Common;
+import Common.Checkpointer_Common;
+import Common.CountingMode_Common;
+import Common.FrequencyIndex_Common;
+import Common.MappedPages_Common;
+import Common.MultistreamPages_Common;
+import Common.Options_Common;
+import Common.PageCounter_Common;
+import Common.PageQueue_Common;
+import Common.RunResult_Common;
+import Common.ShardedPages_Common;
+import Common.StageTimer_Common;
+import Common.Stage_Common;
+import Common.StreamCodec_Common;
+import Common.TopK_Common;
+import Common.WordCountTable_Common;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public class WordCount_Sequential {
     static final int maxPages = 20000;
     static final String fileName = "enwiki-20250201.xml";
+    static final int topWords = 3;
+    static final int parserShards = 1;
+    static final boolean mappedReader = false;
+    static final boolean streaming = false;
+    static final int queueCapacity = 64;
 
-    private static final HashMap<String, Integer> counts =
-            new HashMap<String, Integer>();
+    public static Options_Common defaults() {
+        return new Options_Common()
+                .setMaxPages(maxPages)
+                .setFileName(fileName)
+                .setTopWords(topWords)
+                .setParserShards(parserShards)
+                .setMappedReader(mappedReader)
+                .setStreaming(streaming)
+                .setQueueCapacity(queueCapacity);
+    }
 
     public static void main(String[] args) throws Exception {
+        run(defaults().parse(args)).print();
+    }
+
+    public static RunResult_Common run(Options_Common options) throws Exception {
+        if (options.getCountingMode() != CountingMode_Common.PER_TASK)
+            throw new IllegalArgumentException("The sequential engine only supports per-task counting");
+        options.checkReaderOptions("Sequential", false, true);
+        WordCountTable_Common counts = new WordCountTable_Common();
+        StageTimer_Common stages = new StageTimer_Common("Sequential");
         long start = System.currentTimeMillis();
         //Parsing
-        Iterable<Page_Sequential> pages = new Pages_Sequential(maxPages, fileName);
-        List<Page_Sequential> pageList =
-                StreamSupport.stream(pages.spliterator(), false)
-                        .collect(Collectors.toList());
+        Iterable<Page_Sequential> pages;
+        // Checkpoints record a byte offset, which only the mapped reader can resume from.
+        Checkpointer_Common checkpointer = null;
+        MappedPages_Common<Page_Sequential>.PageIterator mapped = null;
+        int resumedPages = 0;
+        if (options.getCheckpointFile() != null) {
+            checkpointer = new Checkpointer_Common(options.getCheckpointFile(), options.getFileName(), options.getCheckpointPages());
+            Checkpoint_Common checkpoint = checkpointer.resume();
+            long offset = 0;
+            if (checkpoint != null) {
+                counts = checkpoint.getCounts();
+                resumedPages = checkpoint.getPages();
+                offset = checkpoint.getOffset();
+            }
+            mapped = new MappedPages_Common<>(options.getMaxPages() - resumedPages, options.getFileName(), Page_Sequential::new).iterator(offset);
+            MappedPages_Common<Page_Sequential>.PageIterator iterator = mapped;
+            pages = () -> iterator;
+        } else if (options.getMultistreamIndex() != null)
+            pages = new MultistreamPages_Common<>(options.getMaxPages(), options.getFileName(), options.getMultistreamIndex(),
+                    StreamCodec_Common.forName(options.getCodec()), options.resolveThreads(), options.getQueueCapacity(), Page_Sequential::new);
+        else if (options.getParserShards() > 1)
+            pages = new ShardedPages_Common<>(options.getMaxPages(), options.getFileName(), options.getParserShards(), Page_Sequential::new);
+        else if (options.isMappedReader())
+            pages = new MappedPages_Common<>(options.getMaxPages(), options.getFileName(), Page_Sequential::new);
+        else
+            pages = new Pages_Sequential(options.getMaxPages(), options.getFileName());
+        pages = stages.timePages(pages, page -> page.getText().length());
+        Iterable<Page_Sequential> pageList;
+        if (checkpointer != null)
+            pageList = pages;
+        else if (options.isStreaming())
+            pageList = PageQueue_Common.fill(pages, options.getQueueCapacity());
+        else
+            pageList = StreamSupport.stream(pages.spliterator(), false)
+                    .collect(Collectors.toList());
 
 
-        int processedPages = 0;
+        int processedPages = resumedPages;
+        long textChars = 0;
+        PageCounter_Common pageCounter = new PageCounter_Common(options.isSkipMarkup(), options.getTokenizer(), stages);
         for (Page_Sequential page : pageList) {
             if (page == null)
                 break;
-            Iterable<String> words = new Words_Sequential(page.getText());
-            for (String word : words)
-                if (word.length() > 1 || word.equals("a") || word.equals("I"))
-                    countWord(word);
+            pageCounter.count(page.getText(), counts);
             ++processedPages;
+            textChars += page.getText().length();
+            if (checkpointer != null)
+                checkpointer.pagesMerged(mapped.position(), processedPages, counts);
         }
+        if (checkpointer != null)
+            checkpointer.finish();
         long end = System.currentTimeMillis();
-        System.out.println("Processed pages: " + processedPages);
-        System.out.println("Elapsed time: " + (end - start) + "ms");
 
-        LinkedHashMap<String, Integer> commonWords = new LinkedHashMap<>();
-        counts.entrySet().stream().sorted(Map.Entry.comparingByValue(Comparator.reverseOrder())).forEachOrdered(x -> commonWords.put(x.getKey(), x.getValue()));
-        commonWords.entrySet().stream().limit(3).collect(Collectors.toList()).forEach(x -> System.out.println("Word: \'" + x.getKey() + "\' with total " + x.getValue() + " occurrences!"));
-    }
+        StageTimer_Common.Span report = stages.begin(Stage_Common.REPORT);
+        List<Map.Entry<String, Long>> commonWords = TopK_Common.of(counts, options.getTopWords());
+        if (options.getIndexFile() != null)
+            FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), counts);
+        report.end();
 
-    private static void countWord(String word) {
-        Integer currentCount = counts.get(word);
-        if (currentCount == null)
-            counts.put(word, 1);
-        else
-            counts.put(word, currentCount + 1);
+        return new RunResult_Common("Sequential", 1, processedPages, textChars, end - start, commonWords, stages);
     }
 }
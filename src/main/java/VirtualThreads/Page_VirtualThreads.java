@@ -0,0 +1,19 @@
+package VirtualThreads;
+
+class Page_VirtualThreads {
+    private String title;
+    private String text;
+
+    public Page_VirtualThreads(String title, String text) {
+        this.title = title;
+        this.text = text;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
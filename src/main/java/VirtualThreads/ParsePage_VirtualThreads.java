@@ -0,0 +1,37 @@
+package VirtualThreads;
+
+import Common.PageCounter_Common;
+import Common.StageTimer_Common;
+import Common.TokenizerMode_Common;
+import Common.WordCountTable_Common;
+import Common.WordCounter_Common;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+public class ParsePage_VirtualThreads implements Callable<WordCountTable_Common> {
+    private final List<Page_VirtualThreads> pageList;
+    private final WordCounter_Common sharedCounts;
+    private final StageTimer_Common stages;
+    private final boolean skipMarkup;
+    private final TokenizerMode_Common tokenizer;
+
+    public ParsePage_VirtualThreads(List<Page_VirtualThreads> pageList, WordCounter_Common sharedCounts,
+                                    StageTimer_Common stages, boolean skipMarkup, TokenizerMode_Common tokenizer) {
+        this.pageList = pageList;
+        this.sharedCounts = sharedCounts;
+        this.stages = stages;
+        this.skipMarkup = skipMarkup;
+        this.tokenizer = tokenizer;
+    }
+
+    @Override
+    public WordCountTable_Common call() {
+        WordCountTable_Common localCounts = sharedCounts == null ? new WordCountTable_Common() : null;
+        WordCounter_Common counter = sharedCounts == null ? localCounts : sharedCounts;
+        PageCounter_Common pageCounter = new PageCounter_Common(skipMarkup, tokenizer, stages);
+        for (Page_VirtualThreads page : pageList)
+            pageCounter.count(page.getText(), counter);
+        return localCounts;
+    }
+}
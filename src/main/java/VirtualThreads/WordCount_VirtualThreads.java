@@ -0,0 +1,171 @@
+package VirtualThreads;
+
+import Common.CountingMode_Common;
+import Common.FrequencyIndex_Common;
+import Common.MappedPages_Common;
+import Common.MultistreamPages_Common;
+import Common.Options_Common;
+import Common.RunResult_Common;
+import Common.ShardedPages_Common;
+import Common.StageTimer_Common;
+import Common.Stage_Common;
+import Common.StreamCodec_Common;
+import Common.StripedWordCountTable_Common;
+import Common.TopK_Common;
+import Common.WordCountTable_Common;
+
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class WordCount_VirtualThreads {
+    static final int maxPages = 20000;
+    static final String fileName = "enwiki-20250201.xml";
+    static final int topWords = 4;
+    static final int parserShards = 1;
+    static final boolean mappedReader = false;
+    // Pages handed to each virtual thread; 1 means one virtual thread per page.
+    static final int pagesPerThread = 8;
+    // Batches submitted but not yet merged; beyond this the reader merges before reading on.
+    static final int maxInFlight = 1024;
+    // Carrier (platform) threads that run the virtual threads, and the most the scheduler
+    // may add to compensate for pinned carriers. 0 keeps the JDK default.
+    static final int carrierThreads = 0;
+    static final int maxCarrierThreads = 0;
+    // APPROXIMATE is not offered: its per-thread sketches would be one per virtual thread.
+    static final CountingMode_Common countingMode = CountingMode_Common.PER_TASK;
+
+    public static Options_Common defaults() {
+        return new Options_Common()
+                .setMaxPages(maxPages)
+                .setFileName(fileName)
+                .setTopWords(topWords)
+                .setThreads(carrierThreads)
+                .setParserShards(parserShards)
+                .setMappedReader(mappedReader)
+                .setCountingMode(countingMode);
+    }
+
+    public static void main(String[] args) throws Exception {
+        run(defaults().parse(args)).print();
+    }
+
+    /**
+     * The thread count option sets the number of carrier threads.
+     */
+    public static RunResult_Common run(Options_Common options) throws Exception {
+        if (options.getCountingMode() == CountingMode_Common.APPROXIMATE)
+            throw new IllegalArgumentException("Approximate counting is not supported with virtual threads");
+        // Dictionary and partitioned counting keep state per thread, and every task has its own virtual thread.
+        if (options.getCountingMode() == CountingMode_Common.DICTIONARY)
+            throw new IllegalArgumentException("Dictionary counting is not supported with virtual threads");
+        if (options.getCountingMode() == CountingMode_Common.PARTITIONED)
+            throw new IllegalArgumentException("Partitioned counting is not supported with virtual threads");
+        options.checkReaderOptions("VirtualThreads", false, false);
+        WordCountTable_Common counts = new WordCountTable_Common();
+        StageTimer_Common stages = new StageTimer_Common("VirtualThreads");
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = newVirtualThreadExecutor(options.getThreads());
+        Iterable<Page_VirtualThreads> pages;
+        if (options.getMultistreamIndex() != null)
+            pages = new MultistreamPages_Common<>(options.getMaxPages(), options.getFileName(), options.getMultistreamIndex(),
+                    StreamCodec_Common.forName(options.getCodec()), options.resolveThreads(), options.getQueueCapacity(), Page_VirtualThreads::new);
+        else if (options.getParserShards() > 1)
+            pages = new ShardedPages_Common<>(options.getMaxPages(), options.getFileName(), options.getParserShards(), Page_VirtualThreads::new);
+        else if (options.isMappedReader())
+            pages = new MappedPages_Common<>(options.getMaxPages(), options.getFileName(), Page_VirtualThreads::new);
+        else
+            pages = new Pages_VirtualThreads(options.getMaxPages(), options.getFileName());
+        pages = stages.timePages(pages, page -> page.getText().length());
+        StripedWordCountTable_Common sharedCounts = options.getCountingMode() == CountingMode_Common.SHARED
+                ? new StripedWordCountTable_Common(4 * Runtime.getRuntime().availableProcessors())
+                : null;
+
+        // Results are merged in completion order, and a batch counts against maxInFlight
+        // until its table is merged, so that also bounds the partial tables alive at once.
+        CompletionService<WordCountTable_Common> completion = new ExecutorCompletionService<>(executor);
+        int inFlight = 0;
+        List<Page_VirtualThreads> pageBatch = new ArrayList<>(pagesPerThread);
+
+        int processedPages = 0;
+        long textChars = 0;
+        for (Page_VirtualThreads page : pages) {
+            if (page == null)
+                break;
+            pageBatch.add(page);
+            processedPages++;
+            textChars += page.getText().length();
+            if (pageBatch.size() >= pagesPerThread) {
+                for (; inFlight >= maxInFlight; inFlight--)
+                    mergeInto(counts, stages, completion.take().get());
+                completion.submit(new ParsePage_VirtualThreads(pageBatch, sharedCounts, stages, options.isSkipMarkup(), options.getTokenizer()));
+                inFlight++;
+                pageBatch = new ArrayList<>(pagesPerThread);
+                // Merge finished batches while reading, so their tables do not pile up.
+                for (Future<WordCountTable_Common> done; (done = completion.poll()) != null; inFlight--)
+                    mergeInto(counts, stages, done.get());
+            }
+        }
+        if (!pageBatch.isEmpty()) {
+            for (; inFlight >= maxInFlight; inFlight--)
+                mergeInto(counts, stages, completion.take().get());
+            completion.submit(new ParsePage_VirtualThreads(pageBatch, sharedCounts, stages, options.isSkipMarkup(), options.getTokenizer()));
+            inFlight++;
+        }
+
+        executor.shutdown();
+
+        for (; inFlight > 0; inFlight--)
+            mergeInto(counts, stages, completion.take().get());
+
+        long end = System.currentTimeMillis();
+
+        StageTimer_Common.Span report = stages.begin(Stage_Common.REPORT);
+        List<Map.Entry<String, Long>> commonWords = sharedCounts != null
+                ? TopK_Common.of(sharedCounts, options.getTopWords())
+                : TopK_Common.of(counts, options.getTopWords());
+        if (options.getIndexFile() != null) {
+            if (sharedCounts != null)
+                FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), sharedCounts);
+            else
+                FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), counts);
+        }
+        report.end();
+        return new RunResult_Common("VirtualThreads", options.resolveThreads(), processedPages, textChars, end - start,
+                commonWords, stages);
+    }
+
+    private static void mergeInto(WordCountTable_Common counts, StageTimer_Common stages, WordCountTable_Common partial) {
+        if (partial != null) {
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            counts.addAll(partial);
+            merge.end();
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively so the
+     * project still compiles for Java 8; on a JDK without virtual threads this falls
+     * back to one platform thread per carrier. The carrier settings only take effect
+     * if they are set before the first virtual thread is created, so later runs in the
+     * same JVM keep the first run's carriers.
+     */
+    private static ExecutorService newVirtualThreadExecutor(int carrierThreads) {
+        if (carrierThreads > 0 && System.getProperty("jdk.virtualThreadScheduler.parallelism") == null)
+            System.setProperty("jdk.virtualThreadScheduler.parallelism", String.valueOf(carrierThreads));
+        if (maxCarrierThreads > 0 && System.getProperty("jdk.virtualThreadScheduler.maxPoolSize") == null)
+            System.setProperty("jdk.virtualThreadScheduler.maxPoolSize", String.valueOf(maxCarrierThreads));
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = carrierThreads > 0 ? carrierThreads : Runtime.getRuntime().availableProcessors();
+            System.out.println("Virtual threads not available, using " + threads + " platform threads");
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+}
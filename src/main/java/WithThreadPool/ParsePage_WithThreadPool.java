@@ -1,28 +1,47 @@
 package WithThreadPool;
 
-import java.util.HashMap;
+import Common.PageCounter_Common;
+import Common.StageTimer_Common;
+import Common.TokenizerMode_Common;
+import Common.WordCountTable_Common;
+import Common.WordCounter_Common;
+
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
 
-public class ParsePage_WithThreadPool implements Callable<Map<String,Integer>> {
+public class ParsePage_WithThreadPool implements Callable<WordCountTable_Common> {
     private final List<Page_WithThreadPool> pageList;
+    private final WordCounter_Common sharedCounts;
+    private final LongAdder textChars;
+    private final StageTimer_Common stages;
+    private final boolean skipMarkup;
+    private final TokenizerMode_Common tokenizer;
 
     public ParsePage_WithThreadPool(List<Page_WithThreadPool> pageList) {
+        this(pageList, null, new LongAdder(), new StageTimer_Common("WithThreadPool"), false, TokenizerMode_Common.BREAK_ITERATOR);
+    }
+
+    public ParsePage_WithThreadPool(List<Page_WithThreadPool> pageList, WordCounter_Common sharedCounts, LongAdder textChars,
+                                    StageTimer_Common stages, boolean skipMarkup, TokenizerMode_Common tokenizer) {
         this.pageList = pageList;
+        this.sharedCounts = sharedCounts;
+        this.textChars = textChars;
+        this.stages = stages;
+        this.skipMarkup = skipMarkup;
+        this.tokenizer = tokenizer;
     }
 
 
     @Override
-    public Map<String, Integer> call() {
-        Map<String,Integer> localCounts = new HashMap<>();
+    public WordCountTable_Common call() {
+        WordCountTable_Common localCounts = sharedCounts == null ? new WordCountTable_Common() : null;
+        WordCounter_Common counter = sharedCounts == null ? localCounts : sharedCounts;
+        PageCounter_Common pageCounter = new PageCounter_Common(skipMarkup, tokenizer, stages);
         for (Page_WithThreadPool page : pageList) {
-            Iterable<String> words = new Words_WithThreadPool(page.getText());
-            for (String word : words) {
-                if (word.length() > 1 || word.equals("a") || word.equals("I")) {
-                    localCounts.merge(word, 1, Integer::sum);
-                }
-            }
+            String text = page.getText();
+            textChars.add(text.length());
+            pageCounter.count(text, counter);
         }
         return localCounts;
     }
@@ -1,63 +1,275 @@
 package WithThreadPool;
 
+import Common.ApproximateCounter_Common;
+import Common.ApproximateCounts_Common;
+import Common.Checkpoint_Common;
+import Common.Checkpointer_Common;
+import Common.CountingMode_Common;
+import Common.DictionaryCounts_Common;
+import Common.FrequencyIndex_Common;
+import Common.MappedPages_Common;
+import Common.MultistreamPages_Common;
+import Common.Options_Common;
+import Common.PartitionedCounts_Common;
+import Common.RunResult_Common;
+import Common.ShardedPages_Common;
+import Common.StageTimer_Common;
+import Common.Stage_Common;
+import Common.StreamCodec_Common;
+import Common.StripedWordCountTable_Common;
+import Common.TopK_Common;
+import Common.WordCountTable_Common;
+import Common.WordCounter_Common;
+
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 public class WordCount_WithThreadPool {
     static final int maxPages = 20000;
     static final String fileName = "enwiki-20250201.xml";
+    static final int topWords = 4;
+    static final int parserShards = 1;
+    static final boolean mappedReader = false;
+    static final CountingMode_Common countingMode = CountingMode_Common.PER_TASK;
+    static final double approximateEpsilon = 1e-4;
+    static final double approximateDelta = 0.01;
 
-    private static final HashMap<String, Integer> counts =
-            new HashMap<String, Integer>();
+    public static Options_Common defaults() {
+        return new Options_Common()
+                .setMaxPages(maxPages)
+                .setFileName(fileName)
+                .setTopWords(topWords)
+                .setParserShards(parserShards)
+                .setMappedReader(mappedReader)
+                .setCountingMode(countingMode)
+                .setApproximateEpsilon(approximateEpsilon)
+                .setApproximateDelta(approximateDelta);
+    }
 
     public static void main(String[] args) throws Exception {
+        run(defaults().parse(args)).print();
+    }
+
+    public static RunResult_Common run(Options_Common options) throws Exception {
+        options.checkReaderOptions("WithThreadPool", true, true);
+        WordCountTable_Common counts = new WordCountTable_Common();
+        StageTimer_Common stages = new StageTimer_Common("WithThreadPool");
 
         long start = System.currentTimeMillis();
-        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        int numberOfThreads = options.resolveThreads();
         ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
-        Iterable<Page_WithThreadPool> pages = new Pages_WithThreadPool(maxPages, fileName);
+        Iterable<Page_WithThreadPool> pages;
+        // Checkpoints record a byte offset, which only the mapped reader can resume from.
+        Checkpointer_Common checkpointer = null;
+        MappedPages_Common<Page_WithThreadPool>.PageIterator mapped = null;
+        int resumedPages = 0;
+        if (options.getCheckpointFile() != null) {
+            if (options.getCountingMode() != CountingMode_Common.PER_TASK)
+                throw new IllegalArgumentException("Checkpointing needs per-task counting");
+            checkpointer = new Checkpointer_Common(options.getCheckpointFile(), options.getFileName(), options.getCheckpointPages());
+            Checkpoint_Common checkpoint = checkpointer.resume();
+            long offset = 0;
+            if (checkpoint != null) {
+                counts = checkpoint.getCounts();
+                resumedPages = checkpoint.getPages();
+                offset = checkpoint.getOffset();
+            }
+            mapped = new MappedPages_Common<>(options.getMaxPages() - resumedPages, options.getFileName(), Page_WithThreadPool::new).iterator(offset);
+            MappedPages_Common<Page_WithThreadPool>.PageIterator iterator = mapped;
+            pages = () -> iterator;
+        } else if (options.getMultistreamIndex() != null)
+            pages = new MultistreamPages_Common<>(options.getMaxPages(), options.getFileName(), options.getMultistreamIndex(),
+                    StreamCodec_Common.forName(options.getCodec()), options.resolveThreads(), options.getQueueCapacity(), Page_WithThreadPool::new);
+        else if (options.getParserShards() > 1)
+            pages = new ShardedPages_Common<>(options.getMaxPages(), options.getFileName(), options.getParserShards(), Page_WithThreadPool::new);
+        else if (options.isMappedReader() && options.isLazyText())
+            pages = MappedPages_Common.lazy(options.getMaxPages(), options.getFileName(), Page_WithThreadPool::new);
+        else if (options.isMappedReader())
+            pages = new MappedPages_Common<>(options.getMaxPages(), options.getFileName(), Page_WithThreadPool::new);
+        else
+            pages = new Pages_WithThreadPool(options.getMaxPages(), options.getFileName());
+        pages = stages.timePages(pages, Page_WithThreadPool::getTextLength);
+        StripedWordCountTable_Common stripedCounts = options.getCountingMode() == CountingMode_Common.SHARED
+                ? new StripedWordCountTable_Common(4 * numberOfThreads)
+                : null;
+        ApproximateCounts_Common approximateCounts = options.getCountingMode() == CountingMode_Common.APPROXIMATE
+                ? new ApproximateCounts_Common(options.getApproximateEpsilon(), options.getApproximateDelta())
+                : null;
+        DictionaryCounts_Common dictionaryCounts = options.getCountingMode() == CountingMode_Common.DICTIONARY
+                ? new DictionaryCounts_Common()
+                : null;
+        PartitionedCounts_Common partitionedCounts = options.getCountingMode() == CountingMode_Common.PARTITIONED
+                ? new PartitionedCounts_Common()
+                : null;
+        WordCounter_Common sharedCounts = stripedCounts != null ? stripedCounts
+                : approximateCounts != null ? approximateCounts
+                : dictionaryCounts != null ? dictionaryCounts
+                : partitionedCounts;
         int chunkValue = 500;
-        List<Future<Map<String,Integer>>> futures = new ArrayList<>();
+        int maxInFlight = options.resolveMaxInFlight();
+        PendingChunks chunks = new PendingChunks(counts, stages, executor, checkpointer);
         List<Page_WithThreadPool> pageChunck = new ArrayList<>(chunkValue);
 
-        int processedPages = 0;
+        int processedPages = resumedPages;
+        // Summed by the workers from the decoded text, so lazy pages count chars too.
+        LongAdder textChars = new LongAdder();
         for (Page_WithThreadPool page : pages) {
             if (page == null)
                 break;
             pageChunck.add(page);
             processedPages++;
             if (pageChunck.size() >= chunkValue) {
-                ParsePage_WithThreadPool parsePage = new ParsePage_WithThreadPool(new ArrayList<>(pageChunck));
-                Future<Map<String, Integer>> future = executor.submit(parsePage);
-                futures.add(future);
+                // At the in-flight limit the reader waits for a chunk to be merged, so only
+                // maxInFlight chunks of pages and partial tables are alive at a time.
+                while (chunks.size() >= maxInFlight)
+                    chunks.mergeNext();
+                ParsePage_WithThreadPool parsePage = new ParsePage_WithThreadPool(new ArrayList<>(pageChunck), sharedCounts, textChars, stages, options.isSkipMarkup(), options.getTokenizer());
+                chunks.submit(parsePage, mapped == null ? 0 : mapped.position(), processedPages);
                 pageChunck.clear();
+                chunks.mergeDone();
             }
         }
         if (!pageChunck.isEmpty()) {
-            ParsePage_WithThreadPool parsePage = new ParsePage_WithThreadPool(new ArrayList<>(pageChunck));
-            Future<Map<String, Integer>> future = executor.submit(parsePage);
-            futures.add(future);
+            while (chunks.size() >= maxInFlight)
+                chunks.mergeNext();
+            ParsePage_WithThreadPool parsePage = new ParsePage_WithThreadPool(new ArrayList<>(pageChunck), sharedCounts, textChars, stages, options.isSkipMarkup(), options.getTokenizer());
+            chunks.submit(parsePage, mapped == null ? 0 : mapped.position(), processedPages);
         }
 
+        while (chunks.size() > 0)
+            chunks.mergeNext();
+        if (partitionedCounts != null) {
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            stripedCounts = partitionedCounts.merge(numberOfThreads, executor);
+            merge.end();
+        }
         executor.shutdown();
-
-        for (Future<Map<String,Integer>> future : futures) {
-            Map<String,Integer> partial = future.get();
-            partial.forEach((word, count) ->
-                    counts.merge(word, count, Integer::sum)
-            );
+        if (checkpointer != null)
+            checkpointer.finish();
+        if (dictionaryCounts != null) {
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            counts = dictionaryCounts.merge();
+            merge.end();
         }
 
         long end = System.currentTimeMillis();
-        System.out.println("Processed pages: " + processedPages);
-        System.out.println("Elapsed time: " + (end - start) + "ms");
 
-        LinkedHashMap<String, Integer> commonWords = new LinkedHashMap<>();
-        counts.entrySet().stream().sorted(Map.Entry.comparingByValue(Comparator.reverseOrder())).forEachOrdered(x -> commonWords.put(x.getKey(), x.getValue()));
-        commonWords.entrySet().stream().limit(4).collect(Collectors.toList()).forEach(x -> System.out.println("Word: \'" + x.getKey() + "\' with total " + x.getValue() + " occurrences!"));
+        if (approximateCounts != null) {
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            ApproximateCounter_Common merged = approximateCounts.merge();
+            merge.end();
+            StageTimer_Common.Span report = stages.begin(Stage_Common.REPORT);
+            List<ApproximateCounter_Common.Estimate> estimates = merged.top(options.getTopWords());
+            report.end();
+            return new RunResult_Common("WithThreadPool", numberOfThreads, processedPages, textChars.sum(), end - start,
+                    estimates, merged.errorBounds(), stages);
+        }
+        StageTimer_Common.Span report = stages.begin(Stage_Common.REPORT);
+        List<Map.Entry<String, Long>> commonWords = stripedCounts != null
+                ? TopK_Common.of(stripedCounts, options.getTopWords())
+                : TopK_Common.of(counts, options.getTopWords());
+        if (options.getIndexFile() != null) {
+            if (stripedCounts != null)
+                FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), stripedCounts);
+            else
+                FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), counts);
+        }
+        report.end();
+        return new RunResult_Common("WithThreadPool", numberOfThreads, processedPages, textChars.sum(), end - start,
+                commonWords, stages);
+    }
+
+    /**
+     * Chunks submitted to the pool and not merged yet. Without a checkpointer they are
+     * merged in completion order, so a slow chunk never holds up the reader. A checkpoint
+     * has to cover exactly the pages before its offset, so with one they are merged in
+     * submission order.
+     */
+    private static final class PendingChunks {
+        private final WordCountTable_Common counts;
+        private final StageTimer_Common stages;
+        private final ExecutorService executor;
+        private final Checkpointer_Common checkpointer;
+        private final CompletionService<WordCountTable_Common> completion;
+        private final Deque<Chunk> ordered = new ArrayDeque<>();
+        private int size;
+
+        PendingChunks(WordCountTable_Common counts, StageTimer_Common stages, ExecutorService executor,
+                      Checkpointer_Common checkpointer) {
+            this.counts = counts;
+            this.stages = stages;
+            this.executor = executor;
+            this.checkpointer = checkpointer;
+            this.completion = checkpointer == null ? new ExecutorCompletionService<>(executor) : null;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void submit(ParsePage_WithThreadPool parsePage, long endOffset, int endPages) {
+            if (checkpointer == null)
+                completion.submit(parsePage);
+            else
+                ordered.add(new Chunk(executor.submit(parsePage), endOffset, endPages));
+            size++;
+        }
+
+        /**
+         * Waits for the next chunk and merges it.
+         */
+        void mergeNext() throws Exception {
+            if (checkpointer == null)
+                merge(completion.take());
+            else {
+                Chunk chunk = ordered.pollFirst();
+                merge(chunk.future);
+                checkpointer.pagesMerged(chunk.endOffset, chunk.endPages, counts);
+            }
+        }
+
+        /**
+         * Merges the chunks that can be merged without waiting.
+         */
+        void mergeDone() throws Exception {
+            if (checkpointer == null) {
+                for (Future<WordCountTable_Common> done; size > 0 && (done = completion.poll()) != null; )
+                    merge(done);
+            } else {
+                while (!ordered.isEmpty() && ordered.peekFirst().future.isDone())
+                    mergeNext();
+            }
+        }
+
+        private void merge(Future<WordCountTable_Common> future) throws Exception {
+            WordCountTable_Common partial = future.get();
+            size--;
+            if (partial == null)
+                return;
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            counts.addAll(partial);
+            merge.end();
+        }
+    }
+
+    /**
+     * A submitted chunk and where the dump stood after its last page.
+     */
+    private static final class Chunk {
+        final Future<WordCountTable_Common> future;
+        final long endOffset;
+        final int endPages;
+
+        Chunk(Future<WordCountTable_Common> future, long endOffset, int endPages) {
+            this.future = future;
+            this.endOffset = endOffset;
+            this.endPages = endPages;
+        }
     }
 }
@@ -1,35 +1,59 @@
 package WithoutThreadPool;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import Common.PageCounter_Common;
+import Common.StageTimer_Common;
+import Common.TokenizerMode_Common;
+import Common.WordCountTable_Common;
 
 public class ParsePage_WithoutThreadPool implements Runnable {
 
-    private final List<Page_WithoutThreadPool> pageList;
+    private final Iterable<Page_WithoutThreadPool> pageList;
     private final int threshold = 500;
-    private final Map<String, Integer> localCounts = new HashMap<>();
+    private final WordCountTable_Common localCounts = new WordCountTable_Common();
+    private final StageTimer_Common stages;
+    private final boolean skipMarkup;
+    private final TokenizerMode_Common tokenizer;
+    private long processedChars;
+    // Set when run() fails, so the engine can rethrow it after join().
+    private volatile Throwable failure;
+
+    public ParsePage_WithoutThreadPool(Iterable<Page_WithoutThreadPool> pageList) {
+        this(pageList, new StageTimer_Common("WithoutThreadPool"), false, TokenizerMode_Common.BREAK_ITERATOR);
+    }
 
-    public ParsePage_WithoutThreadPool(List<Page_WithoutThreadPool> pageList) {
+    public ParsePage_WithoutThreadPool(Iterable<Page_WithoutThreadPool> pageList, StageTimer_Common stages, boolean skipMarkup,
+                                       TokenizerMode_Common tokenizer) {
         this.pageList = pageList;
+        this.stages = stages;
+        this.skipMarkup = skipMarkup;
+        this.tokenizer = tokenizer;
     }
 
 
     @Override
     public void run() {
-        for (Page_WithoutThreadPool page : pageList) {
-            if (page == null) continue;
-            Iterable<String> words = new Words_WithoutThreadPool(page.getText());
-            for (String word : words) {
-                if (word.length() > 1 || word.equals("a") || word.equals("I")) {
-                    localCounts.merge(word, 1, Integer::sum);
-                }
+        try {
+            PageCounter_Common pageCounter = new PageCounter_Common(skipMarkup, tokenizer, stages);
+            for (Page_WithoutThreadPool page : pageList) {
+                if (page == null) continue;
+                processedChars += page.getText().length();
+                pageCounter.count(page.getText(), localCounts);
             }
+        } catch (Throwable e) {
+            failure = e;
         }
     }
 
 
-    public Map<String, Integer> getLocalCounts() {
+    public WordCountTable_Common getLocalCounts() {
         return localCounts;
     }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public long getProcessedChars() {
+        return processedChars;
+    }
 }
@@ -1,44 +1,106 @@
 package WithoutThreadPool;
 
+import Common.CountingMode_Common;
+import Common.FrequencyIndex_Common;
+import Common.MappedPages_Common;
+import Common.MultistreamPages_Common;
+import Common.Options_Common;
+import Common.PageQueue_Common;
+import Common.RunResult_Common;
+import Common.ShardedPages_Common;
+import Common.StageTimer_Common;
+import Common.Stage_Common;
+import Common.StreamCodec_Common;
+import Common.StripedWordCountTable_Common;
+import Common.TopK_Common;
+import Common.WordCountTable_Common;
+
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public class WordCount_WithoutThreadPool {
     static final int maxPages = 20000;
     static final String fileName = "enwiki-20250201.xml";
-
-    private static final HashMap<String, Integer> counts =
-            new HashMap<String, Integer>();
+    static final int topWords = 3;
+    static final int parserShards = 1;
+    static final boolean mappedReader = false;
+    static final boolean streaming = false;
+    static final int queueCapacity = 64;
+
+    public static Options_Common defaults() {
+        return new Options_Common()
+                .setMaxPages(maxPages)
+                .setFileName(fileName)
+                .setTopWords(topWords)
+                .setParserShards(parserShards)
+                .setMappedReader(mappedReader)
+                .setStreaming(streaming)
+                .setQueueCapacity(queueCapacity);
+    }
 
     public static void main(String[] args) throws Exception {
+        run(defaults().parse(args)).print();
+    }
 
-        long startTime = System.currentTimeMillis();
-        Iterable<Page_WithoutThreadPool> pages = new Pages_WithoutThreadPool(maxPages, fileName);
-        int numberOfThreads = Runtime.getRuntime().availableProcessors();
-
-        List<Page_WithoutThreadPool> pageList =
-                StreamSupport.stream(pages.spliterator(), false)
-                        .collect(Collectors.toList());
-
-        int pageLength = pageList.size();
+    public static RunResult_Common run(Options_Common options) throws Exception {
+        if (options.getCountingMode() != CountingMode_Common.PER_TASK && options.getCountingMode() != CountingMode_Common.PARTITIONED)
+            throw new IllegalArgumentException("Only per-task and partitioned counting are supported without a thread pool");
+        options.checkReaderOptions("WithoutThreadPool", false, false);
+        WordCountTable_Common counts = new WordCountTable_Common();
+        StageTimer_Common stages = new StageTimer_Common("WithoutThreadPool");
 
-        int chunkSize = (pageLength + numberOfThreads - 1) / numberOfThreads;
+        long startTime = System.currentTimeMillis();
+        Iterable<Page_WithoutThreadPool> pages;
+        if (options.getMultistreamIndex() != null)
+            pages = new MultistreamPages_Common<>(options.getMaxPages(), options.getFileName(), options.getMultistreamIndex(),
+                    StreamCodec_Common.forName(options.getCodec()), options.resolveThreads(), options.getQueueCapacity(), Page_WithoutThreadPool::new);
+        else if (options.getParserShards() > 1)
+            pages = new ShardedPages_Common<>(options.getMaxPages(), options.getFileName(), options.getParserShards(), Page_WithoutThreadPool::new);
+        else if (options.isMappedReader())
+            pages = new MappedPages_Common<>(options.getMaxPages(), options.getFileName(), Page_WithoutThreadPool::new);
+        else
+            pages = new Pages_WithoutThreadPool(options.getMaxPages(), options.getFileName());
+        pages = stages.timePages(pages, page -> page.getText().length());
+        int numberOfThreads = options.resolveThreads();
 
         List<Thread> threadList = new ArrayList<>();
         List<ParsePage_WithoutThreadPool> parsePageList = new ArrayList<>();
+        PageQueue_Common<Page_WithoutThreadPool> pageQueue = null;
+        int pageLength = 0;
+
+        if (options.isStreaming()) {
+            pageQueue = PageQueue_Common.fill(pages, options.getQueueCapacity());
+            for (int i = 0; i < numberOfThreads; i++) {
+                ParsePage_WithoutThreadPool parsePage = new ParsePage_WithoutThreadPool(pageQueue, stages, options.isSkipMarkup(), options.getTokenizer());
+                threadList.add(new Thread(parsePage));
+                parsePageList.add(parsePage);
+            }
+        } else {
+            // The XML readers end with a null page, which is not a page to count.
+            List<Page_WithoutThreadPool> pageList =
+                    StreamSupport.stream(pages.spliterator(), false)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList());
+
+            pageLength = pageList.size();
 
-        for (int i = 0; i < numberOfThreads; i++) {
-            int start = i * chunkSize;
-            int end = Math.min(pageLength, start + chunkSize);
-            if (start >= end) break;
+            int chunkSize = (pageLength + numberOfThreads - 1) / numberOfThreads;
 
-            List<Page_WithoutThreadPool> pageSubList = pageList.subList(start, end);
+            for (int i = 0; i < numberOfThreads; i++) {
+                int start = i * chunkSize;
+                int end = Math.min(pageLength, start + chunkSize);
+                if (start >= end) break;
 
-            ParsePage_WithoutThreadPool parsePage = new ParsePage_WithoutThreadPool(pageSubList);
-            Thread thread = new Thread(parsePage);
-            threadList.add(thread);
-            parsePageList.add(parsePage);
+                List<Page_WithoutThreadPool> pageSubList = pageList.subList(start, end);
+
+                ParsePage_WithoutThreadPool parsePage = new ParsePage_WithoutThreadPool(pageSubList, stages, options.isSkipMarkup(), options.getTokenizer());
+                Thread thread = new Thread(parsePage);
+                threadList.add(thread);
+                parsePageList.add(parsePage);
+            }
         }
 
         for (int i = 0; i < threadList.size(); i++) {
@@ -48,20 +110,48 @@ public class WordCount_WithoutThreadPool {
         for (Thread thread : threadList) {
             thread.join();
         }
-
+        for (ParsePage_WithoutThreadPool parser : parsePageList)
+            if (parser.getFailure() != null)
+                throw new ExecutionException(parser.getFailure());
+
+        if (options.isStreaming())
+            pageLength = pageQueue.getQueuedPages();
+
+        long textChars = 0;
+        for (ParsePage_WithoutThreadPool parser : parsePageList)
+            textChars += parser.getProcessedChars();
+        StripedWordCountTable_Common stripedCounts = null;
+        if (options.getCountingMode() == CountingMode_Common.PARTITIONED) {
+            // Each thread's table is already a per-thread partial; merge them by stripe, a thread per worker.
+            List<WordCountTable_Common> partials = new ArrayList<>();
+            for (ParsePage_WithoutThreadPool parser : parsePageList)
+                partials.add(parser.getLocalCounts());
+            StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+            stripedCounts = StripedWordCountTable_Common.merge(partials, numberOfThreads, task -> new Thread(task).start());
+            merge.end();
+        } else {
+            for (ParsePage_WithoutThreadPool parser : parsePageList) {
+                StageTimer_Common.Span merge = stages.begin(Stage_Common.MERGE);
+                counts.addAll(parser.getLocalCounts());
+                merge.end();
+            }
+        }
         long endTime = System.currentTimeMillis();
-        System.out.println("Processed pages: " + pageLength);
-        System.out.println("Elapsed time: " + (endTime - startTime) + "ms");
-
 
-        LinkedHashMap<String, Integer> commonWords = new LinkedHashMap<>();
-        for (ParsePage_WithoutThreadPool parser : parsePageList) {
-            for (Map.Entry<String, Integer> entry : parser.getLocalCounts().entrySet()) {
-                counts.merge(entry.getKey(), entry.getValue(), Integer::sum);
-            }
+        StageTimer_Common.Span report = stages.begin(Stage_Common.REPORT);
+        List<Map.Entry<String, Long>> commonWords = stripedCounts != null
+                ? TopK_Common.of(stripedCounts, options.getTopWords())
+                : TopK_Common.of(counts, options.getTopWords());
+        if (options.getIndexFile() != null) {
+            if (stripedCounts != null)
+                FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), stripedCounts);
+            else
+                FrequencyIndex_Common.write(Paths.get(options.getIndexFile()), counts);
         }
-        counts.entrySet().stream().sorted(Map.Entry.comparingByValue(Comparator.reverseOrder())).forEachOrdered(x -> commonWords.put(x.getKey(), x.getValue()));
-        commonWords.entrySet().stream().limit(3).collect(Collectors.toList()).forEach(x -> System.out.println("Word: \'" + x.getKey() + "\' with total " + x.getValue() + " occurrences!"));
+        report.end();
+
+        return new RunResult_Common("WithoutThreadPool", numberOfThreads, pageLength, textChars, endTime - startTime,
+                commonWords, stages);
     }
 
 }
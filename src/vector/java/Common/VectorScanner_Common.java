@@ -0,0 +1,51 @@
+package Common;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * {@link DelimiterScanner_Common} on the Vector API: each step loads the preferred
+ * species (16 to 64 bytes) and turns the comparison into a mask. Tails shorter than
+ * a vector go to the scalar loops, so the results are identical. Only built by the {@code vector}
+ * profile; {@link DelimiterScanner_Common#load()} finds it by name.
+ */
+public class VectorScanner_Common implements DelimiterScanner_Common {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    public VectorScanner_Common() {
+        // Fails here, not in the middle of a scan, when the module is missing.
+        ByteVector.zero(BYTES);
+    }
+
+    @Override
+    public int indexOf(ByteBuffer buffer, byte value, int from, int to) {
+        int i = from;
+        for (int bound = from + BYTES.loopBound(to - from); i < bound; i += BYTES.length()) {
+            VectorMask<Byte> hits = ByteVector.fromByteBuffer(BYTES, buffer, i, ByteOrder.nativeOrder()).eq(value);
+            if (hits.anyTrue())
+                return i + hits.firstTrue();
+        }
+        return DelimiterScanner_Common.super.indexOf(buffer, value, i, to);
+    }
+
+    @Override
+    public int indexOf(byte[] bytes, byte value, int from, int to) {
+        int i = from;
+        for (int bound = from + BYTES.loopBound(to - from); i < bound; i += BYTES.length()) {
+            VectorMask<Byte> hits = ByteVector.fromArray(BYTES, bytes, i).eq(value);
+            if (hits.anyTrue())
+                return i + hits.firstTrue();
+        }
+        return DelimiterScanner_Common.super.indexOf(bytes, value, i, to);
+    }
+
+    @Override
+    public String name() {
+        return "vector " + BYTES.vectorBitSize() + "-bit";
+    }
+}